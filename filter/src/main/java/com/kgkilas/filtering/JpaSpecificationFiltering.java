@@ -1,12 +0,0 @@
-package com.kgkilas.filtering;
-
-import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
-
-@SpringBootApplication
-public class JpaSpecificationFiltering {
-    public static void main(String[] args) {
-        SpringApplication.run(JpaSpecificationFiltering.class, args);
-
-    }
-}
\ No newline at end of file
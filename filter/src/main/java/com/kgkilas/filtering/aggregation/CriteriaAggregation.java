@@ -0,0 +1,129 @@
+package com.kgkilas.filtering.aggregation;
+
+import com.kgkilas.filtering.specification.CriteriaSpecification;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes facet aggregates over the rows matched by a set of filter dimensions.
+ * Every facet is computed with disjunctive semantics: the filter dimension named like the
+ * facet is left out, so selecting a value of a facet does not hide its other values.
+ * Only grouped tuples are selected, entities are never hydrated.
+ *
+ * @param <T> the type of the entity
+ */
+public class CriteriaAggregation<T> {
+
+    private final EntityManager entityManager;
+    private final Class<T> entityClass;
+
+    /**
+     * Creates an aggregation over an entity.
+     *
+     * @param entityManager the entity manager executing the queries
+     * @param entityClass the entity class
+     */
+    public CriteriaAggregation(EntityManager entityManager, Class<T> entityClass) {
+        this.entityManager = entityManager;
+        this.entityClass = entityClass;
+    }
+
+    /**
+     * Computes the given facets. Each facet is one {@code GROUP BY} query, because disjunctive
+     * faceting gives every facet its own {@code WHERE} clause.
+     *
+     * @param dimensions the filter specifications, keyed by dimension name
+     * @param facets the facets to compute
+     * @return the facet results, in the order of the facets
+     */
+    public List<FacetResult> aggregate(Map<String, Specification<T>> dimensions, List<Facet> facets) {
+        List<FacetResult> results = new ArrayList<>(facets.size());
+        for (Facet facet : facets) {
+            List<Specification<T>> specifications = new ArrayList<>();
+            dimensions.forEach((dimension, specification) -> {
+                if (!dimension.equals(facet.getName())) {
+                    specifications.add(specification);
+                }
+            });
+            Specification<T> specification = CriteriaSpecification.combine(specifications);
+            results.add(switch (facet.getType()) {
+                case TERMS -> terms(specification, facet);
+                case HISTOGRAM -> histogram(specification, facet);
+                case STATS -> stats(specification, facet);
+            });
+        }
+        return results;
+    }
+
+    private FacetResult terms(Specification<T> specification, Facet facet) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+        Path<Object> path = facetPath(root, facet);
+        Expression<Long> count = criteriaBuilder.count(root);
+        query.multiselect(path, count)
+                .where(specification.toPredicate(root, query, criteriaBuilder))
+                .groupBy(path)
+                .orderBy(criteriaBuilder.desc(count));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (facet.getLimit() > 0) {
+            typedQuery.setMaxResults(facet.getLimit());
+        }
+        return toBucketResult(facet, typedQuery.getResultList());
+    }
+
+    private FacetResult histogram(Specification<T> specification, Facet facet) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+        Path<Number> path = facetPath(root, facet);
+        // Literals rather than parameters, so the select and group by expressions are identical
+        Expression<Long> interval = criteriaBuilder.literal(facet.getInterval());
+        Expression<Long> bucket = criteriaBuilder.prod(
+                criteriaBuilder.function("floor", Long.class, criteriaBuilder.quot(path, interval)), interval);
+        query.multiselect(bucket, criteriaBuilder.count(root))
+                .where(specification.toPredicate(root, query, criteriaBuilder))
+                .groupBy(bucket)
+                .orderBy(criteriaBuilder.asc(bucket));
+        return toBucketResult(facet, entityManager.createQuery(query).getResultList());
+    }
+
+    private <F extends Comparable<? super F>> FacetResult stats(Specification<T> specification, Facet facet) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+        Path<F> path = facetPath(root, facet);
+        query.multiselect(criteriaBuilder.least(path), criteriaBuilder.greatest(path), criteriaBuilder.count(path))
+                .where(specification.toPredicate(root, query, criteriaBuilder));
+
+        Tuple stats = entityManager.createQuery(query).getSingleResult();
+        Number count = (Number) stats.get(2);
+        return new FacetResult(facet.getName(), facet.getType(), List.of(), stats.get(0), stats.get(1),
+                count != null ? count.longValue() : 0);
+    }
+
+    private <Y> Path<Y> facetPath(Root<T> root, Facet facet) {
+        return facet.getJoin() != null
+                ? root.join(facet.getJoin(), JoinType.LEFT).get(facet.getAttribute())
+                : root.get(facet.getAttribute());
+    }
+
+    private static FacetResult toBucketResult(Facet facet, List<Tuple> rows) {
+        List<FacetBucket> buckets = new ArrayList<>(rows.size());
+        long total = 0;
+        for (Tuple row : rows) {
+            long count = ((Number) row.get(1)).longValue();
+            buckets.add(new FacetBucket(row.get(0), count));
+            total += count;
+        }
+        return new FacetResult(facet.getName(), facet.getType(), buckets, null, null, total);
+    }
+}
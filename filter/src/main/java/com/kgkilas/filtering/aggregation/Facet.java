@@ -0,0 +1,82 @@
+package com.kgkilas.filtering.aggregation;
+
+import lombok.Getter;
+
+/**
+ * A facet dimension to aggregate over. The facet name doubles as the name of the filter
+ * dimension it drops when it is computed, so a facet never narrows its own counts.
+ */
+@Getter
+public final class Facet {
+
+    /**
+     * Default number of buckets returned by a {@link FacetType#TERMS} facet.
+     */
+    public static final int DEFAULT_LIMIT = 20;
+
+    private final String name;
+    private final String join;
+    private final String attribute;
+    private final FacetType type;
+    private final long interval;
+    private final int limit;
+
+    private Facet(String name, String join, String attribute, FacetType type, long interval, int limit) {
+        this.name = name;
+        this.join = join;
+        this.attribute = attribute;
+        this.type = type;
+        this.interval = interval;
+        this.limit = limit;
+    }
+
+    /**
+     * Counts per distinct value of an attribute of the entity.
+     *
+     * @param name the facet name, matching the filter dimension it drops
+     * @param attribute the attribute to group by
+     * @return the facet
+     */
+    public static Facet terms(String name, String attribute) {
+        return new Facet(name, null, attribute, FacetType.TERMS, 0, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Counts per distinct value of an attribute of an associated entity.
+     *
+     * @param name the facet name, matching the filter dimension it drops
+     * @param join the association to join
+     * @param attribute the attribute of the associated entity to group by
+     * @param limit the maximum number of buckets
+     * @return the facet
+     */
+    public static Facet terms(String name, String join, String attribute, int limit) {
+        return new Facet(name, join, attribute, FacetType.TERMS, 0, limit);
+    }
+
+    /**
+     * Counts per fixed-width bucket of a numeric attribute of the entity.
+     *
+     * @param name the facet name, matching the filter dimension it drops
+     * @param attribute the numeric attribute to bucket
+     * @param interval the width of each bucket
+     * @return the facet
+     */
+    public static Facet histogram(String name, String attribute, long interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Histogram interval must be positive: " + interval);
+        }
+        return new Facet(name, null, attribute, FacetType.HISTOGRAM, interval, 0);
+    }
+
+    /**
+     * Minimum, maximum and count of an attribute of the entity.
+     *
+     * @param name the facet name, matching the filter dimension it drops
+     * @param attribute the attribute to aggregate
+     * @return the facet
+     */
+    public static Facet stats(String name, String attribute) {
+        return new Facet(name, null, attribute, FacetType.STATS, 0, 0);
+    }
+}
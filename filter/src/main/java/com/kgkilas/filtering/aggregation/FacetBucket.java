@@ -0,0 +1,15 @@
+package com.kgkilas.filtering.aggregation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The number of matching rows for one value, or one bucket, of a facet.
+ */
+@Getter
+@AllArgsConstructor
+public class FacetBucket {
+
+    private final Object key;
+    private final long count;
+}
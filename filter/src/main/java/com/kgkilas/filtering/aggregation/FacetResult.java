@@ -0,0 +1,22 @@
+package com.kgkilas.filtering.aggregation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The aggregate of one facet. Buckets are set for {@link FacetType#TERMS} and
+ * {@link FacetType#HISTOGRAM} facets, min and max for {@link FacetType#STATS} facets.
+ */
+@Getter
+@AllArgsConstructor
+public class FacetResult {
+
+    private final String name;
+    private final FacetType type;
+    private final List<FacetBucket> buckets;
+    private final Object min;
+    private final Object max;
+    private final long count;
+}
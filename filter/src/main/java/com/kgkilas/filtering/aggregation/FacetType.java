@@ -0,0 +1,22 @@
+package com.kgkilas.filtering.aggregation;
+
+/**
+ * The kind of aggregate computed for a facet.
+ */
+public enum FacetType {
+
+    /**
+     * Counts the matching rows per distinct value, most frequent values first.
+     */
+    TERMS,
+
+    /**
+     * Counts the matching rows per fixed-width numeric bucket.
+     */
+    HISTOGRAM,
+
+    /**
+     * Computes the minimum, maximum and count of the matching values.
+     */
+    STATS
+}
@@ -0,0 +1,31 @@
+package com.kgkilas.filtering.autoconfigure;
+
+import com.kgkilas.filtering.specification.TwoPhaseJoinResolver;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+
+/**
+ * Auto-configuration of the filtering library. Registers the beans the library needs once JPA is
+ * configured, and the runtime hints needed to use the filter classes in a native image.
+ * The library contributes no component scanning; everything else is plain static API.
+ */
+@AutoConfiguration(afterName = "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration")
+@ConditionalOnClass({EntityManager.class, Specification.class})
+@ImportRuntimeHints(FilteringRuntimeHints.class)
+public class FilteringAutoConfiguration {
+
+    @Bean
+    @ConditionalOnBean(EntityManagerFactory.class)
+    @ConditionalOnMissingBean
+    public TwoPhaseJoinResolver twoPhaseJoinResolver(EntityManagerFactory entityManagerFactory) {
+        return new TwoPhaseJoinResolver(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+    }
+}
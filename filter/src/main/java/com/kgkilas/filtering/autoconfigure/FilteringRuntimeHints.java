@@ -0,0 +1,38 @@
+package com.kgkilas.filtering.autoconfigure;
+
+import com.kgkilas.filtering.filters.*;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * Registers reflection hints for the filter classes. Request parameters are bound to filters through
+ * their getters and fluent setters, and filters are compared and printed through their fields, all of
+ * which a native image only keeps when registered. Specifications are built by generated code and
+ * need no hints.
+ */
+class FilteringRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final List<Class<?>> FILTER_TYPES = List.of(
+            FieldType.class,
+            BaseFilter.class,
+            RangeFilter.class,
+            BooleanFilter.class,
+            IntegerFilter.class,
+            LongFilter.class,
+            StringFilter.class,
+            LocalDateFilter.class,
+            LocalDateTimeFilter.class);
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> filterType : FILTER_TYPES) {
+            hints.reflection().registerType(filterType,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS,
+                    MemberCategory.DECLARED_FIELDS);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.kgkilas.filtering.evaluation;
+
+import com.kgkilas.filtering.filters.RangeFilter;
+import com.kgkilas.filtering.normalization.FilterNormalizer;
+import com.kgkilas.filtering.normalization.NormalizedFilter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Compiles range filters into in-memory predicates with the same semantics as the SQL rendered by
+ * {@link com.kgkilas.filtering.specification.CriteriaSpecification#buildRangePredicate}. As in SQL,
+ * a null value never satisfies a condition, so it only matches a filter without conditions.
+ * The {@code like}, {@code contains}, {@code doesNotContain} and {@code matchesTokens} fragments are
+ * matched as literal substrings; the rendered SQL escapes the {@code %} and {@code _} wildcards to agree.
+ */
+public final class FilterMatcher {
+
+    private FilterMatcher() {
+    }
+
+    /**
+     * Compiles a range filter into a predicate. The filter is normalized first, so contradictory
+     * filters compile to a predicate that rejects everything and redundant conditions are not evaluated.
+     *
+     * @param rangeFilter the range filter to compile, or null to match everything
+     * @param <F> the type of the field being filtered
+     * @return a predicate matching the values accepted by the filter
+     */
+    public static <F extends Comparable<? super F>> Predicate<F> compile(RangeFilter<F> rangeFilter) {
+        return compile(FilterNormalizer.normalize(rangeFilter));
+    }
+
+    /**
+     * Compiles a normalized filter into a predicate. Comparison values are lowercased and collected
+     * into hash sets once, so evaluating the predicate does not allocate.
+     *
+     * @param filter the normalized filter to compile
+     * @param <F> the type of the field being filtered
+     * @return a predicate matching the values accepted by the filter
+     */
+    public static <F extends Comparable<? super F>> Predicate<F> compile(NormalizedFilter<F> filter) {
+        if (filter.isUnsatisfiable()) {
+            return value -> false;
+        }
+        List<Predicate<F>> conditions = new ArrayList<>();
+
+        if (filter.getIn() != null) {
+            Set<F> in = new HashSet<>(filter.getIn());
+            conditions.add(in::contains);
+        }
+        if (filter.getNotIn() != null) {
+            Set<F> notIn = new HashSet<>(filter.getNotIn());
+            conditions.add(value -> !notIn.contains(value));
+        }
+        F lowerBound = filter.getLowerBound();
+        if (lowerBound != null) {
+            conditions.add(filter.isLowerInclusive()
+                    ? value -> value.compareTo(lowerBound) >= 0
+                    : value -> value.compareTo(lowerBound) > 0);
+        }
+        F upperBound = filter.getUpperBound();
+        if (upperBound != null) {
+            conditions.add(filter.isUpperInclusive()
+                    ? value -> value.compareTo(upperBound) <= 0
+                    : value -> value.compareTo(upperBound) < 0);
+        }
+        if (filter.getLike() != null) {
+            String fragment = filter.getLike().toString();
+            conditions.add(value -> value.toString().contains(fragment));
+        }
+        String contains = filter.getContains();
+        if (contains != null) {
+            conditions.add(value -> value.toString().toLowerCase(Locale.ROOT).contains(contains));
+        }
+        if (filter.getTokens() != null) {
+            String[] tokens = filter.getTokens().toArray(new String[0]);
+            conditions.add(value -> {
+                String lowerCaseValue = value.toString().toLowerCase(Locale.ROOT);
+                for (String token : tokens) {
+                    if (!lowerCaseValue.contains(token)) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+        }
+        String doesNotContain = filter.getDoesNotContain();
+        if (doesNotContain != null) {
+            conditions.add(value -> !value.toString().toLowerCase(Locale.ROOT).contains(doesNotContain));
+        }
+
+        if (conditions.isEmpty()) {
+            return value -> true;
+        }
+        @SuppressWarnings("unchecked")
+        Predicate<F>[] compiled = conditions.toArray(new Predicate[0]);
+        return value -> {
+            if (value == null) {
+                return false;
+            }
+            for (Predicate<F> condition : compiled) {
+                if (!condition.test(value)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+}
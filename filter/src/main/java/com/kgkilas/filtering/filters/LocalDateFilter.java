@@ -1,7 +1,10 @@
 package com.kgkilas.filtering.filters;
 
 import java.io.Serial;
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.Period;
+import java.time.YearMonth;
 
 public class LocalDateFilter extends RangeFilter<LocalDate> {
     @Serial
@@ -17,4 +20,63 @@ public class LocalDateFilter extends RangeFilter<LocalDate> {
     public LocalDateFilter copy() {
         return new LocalDateFilter(this);
     }
+
+    @Override
+    public LocalDateFilter between(LocalDate fromInclusive, LocalDate toExclusive) {
+        super.between(fromInclusive, toExclusive);
+        return this;
+    }
+
+    /**
+     * Restricts the field to a single day, rendered as {@code [day, day + 1)}.
+     * Combined with other bounds or buckets, the ranges are intersected.
+     *
+     * @param day the day to match, or null to leave the filter unchanged.
+     * @return the current LocalDateFilter instance for method chaining.
+     */
+    public LocalDateFilter setOnDay(LocalDate day) {
+        if (day == null) {
+            return this;
+        }
+        return between(day, day.plusDays(1));
+    }
+
+    /**
+     * Restricts the field to a calendar month, rendered as {@code [first day, first day of next month)}.
+     *
+     * @param month the month to match, or null to leave the filter unchanged.
+     * @return the current LocalDateFilter instance for method chaining.
+     */
+    public LocalDateFilter setInMonth(YearMonth month) {
+        if (month == null) {
+            return this;
+        }
+        return between(month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    /**
+     * Restricts the field to the last days up to and including today, e.g. {@code P7D}
+     * matches today and the six days before it.
+     *
+     * @param period the length of the window, or null to leave the filter unchanged.
+     * @return the current LocalDateFilter instance for method chaining.
+     */
+    public LocalDateFilter setInLastN(Period period) {
+        return inLastN(period, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Restricts the field to the last days up to and including today, as seen by the given clock.
+     *
+     * @param period the length of the window.
+     * @param clock the clock providing the current date.
+     * @return the current LocalDateFilter instance for method chaining.
+     */
+    public LocalDateFilter inLastN(Period period, Clock clock) {
+        if (period == null) {
+            return this;
+        }
+        LocalDate tomorrow = LocalDate.now(clock).plusDays(1);
+        return between(tomorrow.minus(period), tomorrow);
+    }
 }
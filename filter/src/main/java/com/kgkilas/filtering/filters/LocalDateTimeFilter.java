@@ -1,7 +1,11 @@
 package com.kgkilas.filtering.filters;
 
 import java.io.Serial;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 
 public class LocalDateTimeFilter extends RangeFilter<LocalDateTime> {
     @Serial
@@ -19,15 +23,60 @@ public class LocalDateTimeFilter extends RangeFilter<LocalDateTime> {
     }
 
     @Override
-    public LocalDateTimeFilter setGreaterThanOrEqual(LocalDateTime equals) {
-
-        super.setGreaterThanOrEqual(equals.withHour(0).withMinute(0));
+    public LocalDateTimeFilter between(LocalDateTime fromInclusive, LocalDateTime toExclusive) {
+        super.between(fromInclusive, toExclusive);
         return this;
     }
 
-    @Override
-    public LocalDateTimeFilter setLessThanOrEqual(LocalDateTime equals) {
-        super.setLessThanOrEqual(equals.withHour(23).withMinute(59));
-        return this;
+    /**
+     * Restricts the field to a single day, rendered as {@code [day 00:00, next day 00:00)}.
+     * Combined with other bounds or buckets, the ranges are intersected.
+     *
+     * @param day the day to match, or null to leave the filter unchanged.
+     * @return the current LocalDateTimeFilter instance for method chaining.
+     */
+    public LocalDateTimeFilter setOnDay(LocalDate day) {
+        if (day == null) {
+            return this;
+        }
+        return between(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Restricts the field to a calendar month, rendered as {@code [first day 00:00, first day of next month 00:00)}.
+     *
+     * @param month the month to match, or null to leave the filter unchanged.
+     * @return the current LocalDateTimeFilter instance for method chaining.
+     */
+    public LocalDateTimeFilter setInMonth(YearMonth month) {
+        if (month == null) {
+            return this;
+        }
+        return between(month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    /**
+     * Restricts the field to the window of the given length ending now, rendered as {@code [now - duration, now)}.
+     *
+     * @param duration the length of the window, or null to leave the filter unchanged.
+     * @return the current LocalDateTimeFilter instance for method chaining.
+     */
+    public LocalDateTimeFilter setInLastN(Duration duration) {
+        return inLastN(duration, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Restricts the field to the window of the given length ending at the current time of the given clock.
+     *
+     * @param duration the length of the window.
+     * @param clock the clock providing the current time.
+     * @return the current LocalDateTimeFilter instance for method chaining.
+     */
+    public LocalDateTimeFilter inLastN(Duration duration, Clock clock) {
+        if (duration == null) {
+            return this;
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        return between(now.minus(duration), now);
     }
 }
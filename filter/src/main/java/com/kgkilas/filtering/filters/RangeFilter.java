@@ -109,6 +109,34 @@ public class RangeFilter<T extends Comparable<? super T>> extends BaseFilter<T>
         return this;
     }
 
+    /**
+     * Restricts the field to the half-open range {@code [fromInclusive, toExclusive)}, intersected
+     * with the greaterThanOrEqual and lessThan bounds already set. The bounds are stored as
+     * greaterThanOrEqual and lessThan, bypassing any rounding applied by subclass setters, so they
+     * are rendered on the raw column at full precision.
+     *
+     * @param fromInclusive the inclusive lower bound, or null to leave the lower bound unchanged.
+     * @param toExclusive the exclusive upper bound, or null to leave the upper bound unchanged.
+     * @return the current RangeFilter instance for method chaining.
+     */
+    public RangeFilter<T> between(T fromInclusive, T toExclusive) {
+        if (fromInclusive != null) {
+            this.greaterThanOrEqual = tighterLower(this.greaterThanOrEqual, fromInclusive);
+        }
+        if (toExclusive != null) {
+            this.lessThan = tighterUpper(this.lessThan, toExclusive);
+        }
+        return this;
+    }
+
+    private static <T extends Comparable<? super T>> FieldType<T> tighterLower(FieldType<T> current, T value) {
+        return current != null && current.getValue() != null && current.getValue().compareTo(value) >= 0 ? current : new FieldType<>(value);
+    }
+
+    private static <T extends Comparable<? super T>> FieldType<T> tighterUpper(FieldType<T> current, T value) {
+        return current != null && current.getValue() != null && current.getValue().compareTo(value) <= 0 ? current : new FieldType<>(value);
+    }
+
     /**
      * Compares this RangeFilter with another object for equality.
      *
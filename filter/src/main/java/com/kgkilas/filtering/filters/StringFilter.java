@@ -11,6 +11,7 @@ public class StringFilter extends RangeFilter<String> {
     private static final long serialVersionUID = 8L;
     private String contains;
     private String doesNotContain;
+    private String matchesTokens;
 
     public StringFilter() {
     }
@@ -19,6 +20,7 @@ public class StringFilter extends RangeFilter<String> {
         super(filter);
         this.contains = filter.contains;
         this.doesNotContain = filter.doesNotContain;
+        this.matchesTokens = filter.matchesTokens;
     }
 
     public StringFilter copy() {
@@ -35,6 +37,12 @@ public class StringFilter extends RangeFilter<String> {
         return this;
     }
 
+    // Matches values containing every whitespace-separated token, case-insensitively and in any order
+    public StringFilter setMatchesTokens(String matchesTokens) {
+        this.matchesTokens = matchesTokens;
+        return this;
+    }
+
     public boolean equals(Object o) {
         if (this == o) {
             return true;
@@ -43,7 +51,8 @@ public class StringFilter extends RangeFilter<String> {
                 return false;
             } else {
                 StringFilter that = (StringFilter)o;
-                return Objects.equals(this.contains, that.contains) && Objects.equals(this.doesNotContain, that.doesNotContain);
+                return Objects.equals(this.contains, that.contains) && Objects.equals(this.doesNotContain, that.doesNotContain)
+                        && Objects.equals(this.matchesTokens, that.matchesTokens);
             }
         } else {
             return false;
@@ -51,7 +60,7 @@ public class StringFilter extends RangeFilter<String> {
     }
 
     public int hashCode() {
-        return Objects.hash(new Object[]{super.hashCode(), this.contains, this.doesNotContain});
+        return Objects.hash(new Object[]{super.hashCode(), this.contains, this.doesNotContain, this.matchesTokens});
     }
 
     public String toString() {
@@ -67,7 +76,8 @@ public class StringFilter extends RangeFilter<String> {
                 + (this.getLessThanOrEqual() != null ? "lessThanOrEqual=" + this.getLessThanOrEqual() + ", " : "")
                 + (this.getLike() != null ? "like=" + this.getLike() : "")
                 + (this.getContains() != null ? "contains=" + this.getContains() + ", " : "")
-                + (this.getDoesNotContain() != null ? "doesNotContain=" + this.getDoesNotContain() : "")
+                + (this.getDoesNotContain() != null ? "doesNotContain=" + this.getDoesNotContain() + ", " : "")
+                + (this.getMatchesTokens() != null ? "matchesTokens=" + this.getMatchesTokens() : "")
                 + "]";
     }
 }
@@ -0,0 +1,318 @@
+package com.kgkilas.filtering.index;
+
+import com.kgkilas.filtering.filters.StringFilter;
+import com.kgkilas.filtering.normalization.FilterNormalizer;
+import com.kgkilas.filtering.normalization.NormalizedFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index answering case-insensitive substring conditions, the conditions a
+ * {@code LIKE '%term%'} predicate cannot serve from a B-tree index. Every text is indexed under the
+ * trigrams it contains; a search intersects the postings of the trigrams of the required terms and
+ * verifies the candidates against the stored text, so results are exact. Terms shorter than a trigram
+ * are verified against every live text.
+ * <p>
+ * Documents are keyed by a {@code long}, typically the primary key of the indexed row. Updates
+ * append a new document and mark the old one dead; dead documents are compacted away once they
+ * outnumber the live ones. The index is safe for concurrent use.
+ */
+public class TrigramIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private String[] texts = new String[INITIAL_CAPACITY];
+    private int documentCount;
+    private final BitSet liveDocuments = new BitSet();
+    private final Map<Long, Integer> documentsByKey = new HashMap<>();
+    private final Map<Long, Postings> postingsByTrigram = new HashMap<>();
+
+    /**
+     * Indexes the text under the key, replacing any text indexed under it before.
+     *
+     * @param key the key of the document
+     * @param text the text to index, or null to remove the document
+     */
+    public void put(long key, String text) {
+        lock.writeLock().lock();
+        try {
+            delete(key);
+            if (text != null) {
+                insert(key, text.toLowerCase(Locale.ROOT));
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the text indexed under the key.
+     *
+     * @param key the key of the document
+     */
+    public void remove(long key) {
+        lock.writeLock().lock();
+        try {
+            delete(key);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every document.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            keys = new long[INITIAL_CAPACITY];
+            texts = new String[INITIAL_CAPACITY];
+            documentCount = 0;
+            liveDocuments.clear();
+            documentsByKey.clear();
+            postingsByTrigram.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed documents
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentsByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the documents containing every required term and none of the excluded terms, ignoring case.
+     *
+     * @param required the terms every match must contain
+     * @param excluded the terms no match may contain
+     * @param limit the maximum number of keys worth returning
+     * @return the sorted keys of the matching documents, or null if there are more than {@code limit}
+     */
+    public long[] search(Collection<String> required, Collection<String> excluded, int limit) {
+        List<String> requiredTerms = lowerCase(required);
+        List<String> excludedTerms = lowerCase(excluded);
+        lock.readLock().lock();
+        try {
+            BitSet candidates = candidates(requiredTerms);
+            long[] matches = new long[Math.min(candidates.cardinality(), limit + 1)];
+            int matchCount = 0;
+            for (int document = candidates.nextSetBit(0); document >= 0; document = candidates.nextSetBit(document + 1)) {
+                if (matches(texts[document], requiredTerms, excludedTerms)) {
+                    if (matchCount == limit) {
+                        return null;
+                    }
+                    matches[matchCount++] = keys[document];
+                }
+            }
+            long[] result = Arrays.copyOf(matches, matchCount);
+            Arrays.sort(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the documents matching the {@code contains}, {@code matchesTokens} and {@code doesNotContain}
+     * conditions of a filter. Other conditions of the filter are not evaluated.
+     *
+     * @param filter the filter to search for
+     * @param limit the maximum number of keys worth returning
+     * @return the sorted keys of the matching documents, or null if the filter has no text condition
+     * or matches more than {@code limit} documents
+     */
+    public long[] search(StringFilter filter, int limit) {
+        NormalizedFilter<String> normalized = FilterNormalizer.normalize(filter);
+        if (normalized.isUnsatisfiable()) {
+            return new long[0];
+        }
+        List<String> required = new ArrayList<>();
+        if (normalized.getContains() != null) {
+            required.add(normalized.getContains());
+        }
+        if (normalized.getTokens() != null) {
+            required.addAll(normalized.getTokens());
+        }
+        List<String> excluded = normalized.getDoesNotContain() != null ? List.of(normalized.getDoesNotContain()) : List.of();
+        if (required.isEmpty() && excluded.isEmpty()) {
+            return null;
+        }
+        return search(required, excluded, limit);
+    }
+
+    /**
+     * Intersects the postings of the trigrams of the required terms, smallest first.
+     * Must be called with the read lock held.
+     */
+    private BitSet candidates(List<String> requiredTerms) {
+        List<Postings> postings = new ArrayList<>();
+        for (String term : requiredTerms) {
+            for (long trigram : trigrams(term)) {
+                Postings termPostings = postingsByTrigram.get(trigram);
+                if (termPostings == null) {
+                    return new BitSet();
+                }
+                postings.add(termPostings);
+            }
+        }
+        if (postings.isEmpty()) {
+            return (BitSet) liveDocuments.clone();
+        }
+        postings.sort(Comparator.comparingInt(Postings::size));
+        Postings smallest = postings.get(0);
+        BitSet candidates = new BitSet();
+        for (int i = 0; i < smallest.size; i++) {
+            int document = smallest.documents[i];
+            if (liveDocuments.get(document) && containsAll(postings, document)) {
+                candidates.set(document);
+            }
+        }
+        return candidates;
+    }
+
+    private static boolean containsAll(List<Postings> postings, int document) {
+        for (int i = 1; i < postings.size(); i++) {
+            if (!postings.get(i).contains(document)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String text, List<String> requiredTerms, List<String> excludedTerms) {
+        for (String term : requiredTerms) {
+            if (!text.contains(term)) {
+                return false;
+            }
+        }
+        for (String term : excludedTerms) {
+            if (text.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(long key, String text) {
+        int document = documentCount++;
+        if (documentCount > keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            texts = Arrays.copyOf(texts, texts.length * 2);
+        }
+        keys[document] = key;
+        texts[document] = text;
+        liveDocuments.set(document);
+        documentsByKey.put(key, document);
+        // Documents are numbered in insertion order, so every postings list stays sorted
+        for (long trigram : trigrams(text)) {
+            postingsByTrigram.computeIfAbsent(trigram, ignored -> new Postings()).add(document);
+        }
+    }
+
+    private void delete(long key) {
+        Integer document = documentsByKey.remove(key);
+        if (document != null) {
+            liveDocuments.clear(document);
+            texts[document] = null;
+        }
+    }
+
+    private void compactIfSparse() {
+        if (documentCount > INITIAL_CAPACITY && documentsByKey.size() < documentCount / 2) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        long[] liveKeys = new long[documentsByKey.size()];
+        String[] liveTexts = new String[liveKeys.length];
+        int count = 0;
+        for (int document = liveDocuments.nextSetBit(0); document >= 0; document = liveDocuments.nextSetBit(document + 1)) {
+            liveKeys[count] = keys[document];
+            liveTexts[count++] = texts[document];
+        }
+        keys = new long[Math.max(INITIAL_CAPACITY, count)];
+        texts = new String[keys.length];
+        documentCount = 0;
+        liveDocuments.clear();
+        documentsByKey.clear();
+        postingsByTrigram.clear();
+        for (int i = 0; i < count; i++) {
+            insert(liveKeys[i], liveTexts[i]);
+        }
+    }
+
+    /**
+     * Packs every distinct trigram of the text into a long, three UTF-16 code units of 16 bits each.
+     */
+    private static long[] trigrams(String text) {
+        if (text.length() < GRAM_LENGTH) {
+            return new long[0];
+        }
+        long[] trigrams = new long[text.length() - GRAM_LENGTH + 1];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return Arrays.stream(trigrams).distinct().toArray();
+    }
+
+    private static List<String> lowerCase(Collection<String> terms) {
+        List<String> lowerCaseTerms = new ArrayList<>(terms != null ? terms.size() : 0);
+        if (terms != null) {
+            for (String term : terms) {
+                if (term != null && !term.isEmpty()) {
+                    lowerCaseTerms.add(term.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return lowerCaseTerms;
+    }
+
+    /**
+     * A growable, sorted list of document numbers.
+     */
+    private static final class Postings {
+
+        private int[] documents = new int[4];
+        private int size;
+
+        void add(int document) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = document;
+        }
+
+        boolean contains(int document) {
+            return Arrays.binarySearch(documents, 0, size, document) >= 0;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
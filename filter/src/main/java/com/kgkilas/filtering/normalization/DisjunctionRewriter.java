@@ -0,0 +1,97 @@
+package com.kgkilas.filtering.normalization;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Rewrites the branches of an {@code anyOf} group before they are rendered. Branches that can never
+ * match are dropped, and branches that only restrict one and the same field to a set of values are
+ * merged into a single branch, so {@code a = 1 OR a = 2 OR a IN (3, 4)} renders as {@code a IN (1, 2, 3, 4)}.
+ */
+public final class DisjunctionRewriter {
+
+    private DisjunctionRewriter() {
+    }
+
+    /**
+     * Merges value-list branches on the same field and drops unsatisfiable branches.
+     * Branches that are not merged are returned unchanged, in their original order.
+     *
+     * @param branches the branches of the group
+     * @param normalizer normalizes a branch
+     * @param inBranch creates a branch restricting the named field to the given values
+     * @param <C> the criteria type
+     * @return the rewritten branches; empty if no branch can match
+     */
+    public static <C> List<C> mergeInLists(List<C> branches, Function<C, NormalizedCriteria> normalizer,
+                                           BiFunction<String, List<Object>, C> inBranch) {
+        // Slot of every output branch; merged fields keep the slot of their first branch
+        List<Object> slots = new ArrayList<>(branches.size());
+        Map<String, Set<Object>> valuesByField = new LinkedHashMap<>();
+        Map<String, C> firstBranchByField = new LinkedHashMap<>();
+        Map<String, Integer> branchCountByField = new LinkedHashMap<>();
+
+        for (C branch : branches) {
+            NormalizedCriteria normalized = normalizer.apply(branch);
+            if (normalized.isUnsatisfiable()) {
+                continue;
+            }
+            String field = valueListField(normalized);
+            if (field == null) {
+                slots.add(new Kept<>(branch));
+                continue;
+            }
+            if (!valuesByField.containsKey(field)) {
+                slots.add(field);
+                firstBranchByField.put(field, branch);
+            }
+            valuesByField.computeIfAbsent(field, key -> new LinkedHashSet<>()).addAll(normalized.getFilters().get(field).getIn());
+            branchCountByField.merge(field, 1, Integer::sum);
+        }
+
+        List<C> rewritten = new ArrayList<>(slots.size());
+        for (Object slot : slots) {
+            if (slot instanceof Kept<?> kept) {
+                @SuppressWarnings("unchecked")
+                C branch = (C) kept.branch();
+                rewritten.add(branch);
+            } else {
+                String field = (String) slot;
+                rewritten.add(branchCountByField.get(field) > 1
+                        ? inBranch.apply(field, new ArrayList<>(valuesByField.get(field)))
+                        : firstBranchByField.get(field));
+            }
+        }
+        return rewritten;
+    }
+
+    /**
+     * Returns the field a branch restricts to a set of values, if that is its only condition.
+     */
+    private static String valueListField(NormalizedCriteria normalized) {
+        if (normalized.getAnyOf() != null || normalized.getAllOf() != null || normalized.getNot() != null) {
+            return null;
+        }
+        String field = null;
+        for (Map.Entry<String, NormalizedFilter<?>> entry : normalized.getFilters().entrySet()) {
+            if (entry.getValue().isUnconstrained()) {
+                continue;
+            }
+            // Normalized value lists carry no other conditions
+            if (field != null || entry.getValue().getIn() == null) {
+                return null;
+            }
+            field = entry.getKey();
+        }
+        return field;
+    }
+
+    private record Kept<C>(C branch) {
+    }
+}
@@ -0,0 +1,247 @@
+package com.kgkilas.filtering.normalization;
+
+import com.kgkilas.filtering.filters.FieldType;
+import com.kgkilas.filtering.filters.RangeFilter;
+import com.kgkilas.filtering.filters.StringFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * Rewrites range filters into their {@link NormalizedFilter canonical form}:
+ * <ul>
+ *     <li>lower and upper bounds are intersected into at most one bound each, and empty ranges are detected;</li>
+ *     <li>{@code equals} is folded into {@code in}, and {@code in} keeps only the values every other condition accepts,
+ *     after which those conditions are implied and dropped;</li>
+ *     <li>{@code notIn} keeps only the values inside the range;</li>
+ *     <li>{@code in} and {@code notIn} are sorted and deduplicated, and {@code contains}/{@code doesNotContain} are lowercased;</li>
+ *     <li>{@code matchesTokens} is split into lowercased, sorted tokens, dropping tokens implied by {@code contains} or by a longer token.</li>
+ * </ul>
+ * Conditions whose value is null are treated as absent, as are {@code notEquals} and {@code specified},
+ * which are never rendered by {@link com.kgkilas.filtering.specification.CriteriaSpecification}.
+ */
+public final class FilterNormalizer {
+
+    private FilterNormalizer() {
+    }
+
+    /**
+     * Normalizes a range filter.
+     *
+     * @param rangeFilter the filter to normalize, or null
+     * @param <T> the type of the field being filtered
+     * @return the canonical form of the filter; an unconstrained filter if it is null
+     */
+    public static <T extends Comparable<? super T>> NormalizedFilter<T> normalize(RangeFilter<T> rangeFilter) {
+        if (rangeFilter == null) {
+            return new NormalizedFilter<>(false, false, null, false, null, false, null, null, null, null, null, null);
+        }
+        boolean stringFilter = rangeFilter instanceof StringFilter;
+
+        Bounds<T> bounds = new Bounds<>();
+        bounds.lower(valueOf(rangeFilter.getGreaterThan()), false);
+        bounds.lower(valueOf(rangeFilter.getGreaterThanOrEqual()), true);
+        bounds.upper(valueOf(rangeFilter.getLessThan()), false);
+        bounds.upper(valueOf(rangeFilter.getLessThanOrEqual()), true);
+        if (bounds.isEmpty()) {
+            return NormalizedFilter.unsatisfiable(stringFilter);
+        }
+
+        T like = valueOf(rangeFilter.getLike());
+        String contains = null;
+        String doesNotContain = null;
+        List<String> tokens = null;
+        if (rangeFilter instanceof StringFilter string) {
+            contains = lowerCase(string.getContains());
+            doesNotContain = lowerCase(string.getDoesNotContain());
+            tokens = tokens(string.getMatchesTokens(), contains);
+            if (doesNotContain != null && tokens != null) {
+                for (String token : tokens) {
+                    if (token.contains(doesNotContain)) {
+                        return NormalizedFilter.unsatisfiable(true);
+                    }
+                }
+            }
+            // Every string contains the empty fragment, and every string containing the required fragment contains its substrings
+            if (doesNotContain != null && (doesNotContain.isEmpty() || (contains != null && contains.contains(doesNotContain)))) {
+                return NormalizedFilter.unsatisfiable(true);
+            }
+        }
+
+        TreeSet<T> notIn = valuesOf(rangeFilter.getNotIn());
+        TreeSet<T> in = valuesOf(rangeFilter.getIn());
+        T equals = valueOf(rangeFilter.getEquals());
+        if (equals != null) {
+            if (in != null && !in.contains(equals)) {
+                return NormalizedFilter.unsatisfiable(stringFilter);
+            }
+            in = new TreeSet<>(List.of(equals));
+        }
+
+        if (in != null) {
+            List<T> accepted = new ArrayList<>(in.size());
+            for (T value : in) {
+                if (bounds.contains(value) && (notIn == null || !notIn.contains(value))
+                        && matchesFragments(value, like, contains, doesNotContain, tokens)) {
+                    accepted.add(value);
+                }
+            }
+            if (accepted.isEmpty()) {
+                return NormalizedFilter.unsatisfiable(stringFilter);
+            }
+            return new NormalizedFilter<>(false, stringFilter, null, false, null, false, accepted, null, null, null, null, null);
+        }
+
+        if (bounds.isPoint()) {
+            T point = bounds.lower;
+            if ((notIn != null && notIn.contains(point)) || !matchesFragments(point, like, contains, doesNotContain, tokens)) {
+                return NormalizedFilter.unsatisfiable(stringFilter);
+            }
+            return new NormalizedFilter<>(false, stringFilter, null, false, null, false, List.of(point), null, null, null, null, null);
+        }
+
+        List<T> excluded = null;
+        if (notIn != null) {
+            excluded = new ArrayList<>(notIn.size());
+            for (T value : notIn) {
+                if (bounds.contains(value)) {
+                    excluded.add(value);
+                }
+            }
+            if (excluded.isEmpty()) {
+                excluded = null;
+            }
+        }
+        return new NormalizedFilter<>(false, stringFilter, bounds.lower, bounds.lowerInclusive, bounds.upper, bounds.upperInclusive,
+                null, excluded, like, contains, doesNotContain, tokens);
+    }
+
+    /**
+     * Mirrors the {@code like}, {@code contains}, {@code doesNotContain} and {@code matchesTokens} conditions rendered in SQL.
+     */
+    private static <T> boolean matchesFragments(T value, T like, String contains, String doesNotContain, List<String> tokens) {
+        if (like != null && !value.toString().contains(like.toString())) {
+            return false;
+        }
+        String lowerCaseValue = contains != null || doesNotContain != null || tokens != null ? value.toString().toLowerCase(Locale.ROOT) : null;
+        if (contains != null && !lowerCaseValue.contains(contains)) {
+            return false;
+        }
+        if (tokens != null) {
+            for (String token : tokens) {
+                if (!lowerCaseValue.contains(token)) {
+                    return false;
+                }
+            }
+        }
+        return doesNotContain == null || !lowerCaseValue.contains(doesNotContain);
+    }
+
+    /**
+     * Splits the tokens of a {@code matchesTokens} condition, keeping only the tokens not already
+     * required by {@code contains} or by a longer token.
+     */
+    private static List<String> tokens(String matchesTokens, String contains) {
+        if (matchesTokens == null) {
+            return null;
+        }
+        TreeSet<String> distinct = new TreeSet<>();
+        for (String token : matchesTokens.toLowerCase(Locale.ROOT).trim().split("\\s+")) {
+            if (!token.isEmpty()) {
+                distinct.add(token);
+            }
+        }
+        List<String> tokens = new ArrayList<>(distinct.size());
+        for (String token : distinct) {
+            boolean implied = contains != null && contains.contains(token);
+            for (String other : distinct) {
+                implied |= other.length() > token.length() && other.contains(token);
+            }
+            if (!implied) {
+                tokens.add(token);
+            }
+        }
+        return tokens.isEmpty() ? null : tokens;
+    }
+
+    private static String lowerCase(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static <T extends Comparable<? super T>> T valueOf(FieldType<T> fieldType) {
+        return fieldType != null ? fieldType.getValue() : null;
+    }
+
+    private static <T extends Comparable<? super T>> TreeSet<T> valuesOf(List<FieldType<T>> fieldTypes) {
+        if (fieldTypes == null || fieldTypes.isEmpty()) {
+            return null;
+        }
+        TreeSet<T> values = new TreeSet<>();
+        for (FieldType<T> fieldType : fieldTypes) {
+            if (fieldType != null && fieldType.getValue() != null) {
+                values.add(fieldType.getValue());
+            }
+        }
+        return values.isEmpty() ? null : values;
+    }
+
+    /**
+     * The intersection of all lower and upper bounds of a filter.
+     */
+    private static final class Bounds<T extends Comparable<? super T>> {
+        private T lower;
+        private boolean lowerInclusive;
+        private T upper;
+        private boolean upperInclusive;
+
+        void lower(T value, boolean inclusive) {
+            if (value == null) {
+                return;
+            }
+            int comparison = lower == null ? 1 : value.compareTo(lower);
+            if (comparison > 0 || (comparison == 0 && !inclusive)) {
+                lower = value;
+                lowerInclusive = inclusive;
+            }
+        }
+
+        void upper(T value, boolean inclusive) {
+            if (value == null) {
+                return;
+            }
+            int comparison = upper == null ? -1 : value.compareTo(upper);
+            if (comparison < 0 || (comparison == 0 && !inclusive)) {
+                upper = value;
+                upperInclusive = inclusive;
+            }
+        }
+
+        boolean isEmpty() {
+            if (lower == null || upper == null) {
+                return false;
+            }
+            int comparison = lower.compareTo(upper);
+            return comparison > 0 || (comparison == 0 && !(lowerInclusive && upperInclusive));
+        }
+
+        boolean isPoint() {
+            return lower != null && upper != null && lowerInclusive && upperInclusive && lower.compareTo(upper) == 0;
+        }
+
+        boolean contains(T value) {
+            if (lower != null) {
+                int comparison = value.compareTo(lower);
+                if (comparison < 0 || (comparison == 0 && !lowerInclusive)) {
+                    return false;
+                }
+            }
+            if (upper != null) {
+                int comparison = value.compareTo(upper);
+                return comparison < 0 || (comparison == 0 && upperInclusive);
+            }
+            return true;
+        }
+    }
+}
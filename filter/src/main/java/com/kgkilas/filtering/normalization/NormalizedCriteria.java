@@ -0,0 +1,297 @@
+package com.kgkilas.filtering.normalization;
+
+import com.kgkilas.filtering.filters.RangeFilter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable canonical form of a whole criteria object: the {@link NormalizedFilter} of every
+ * non-null filter, keyed by field name, and the normalized {@code anyOf}, {@code allOf} and
+ * {@code not} groups. Equivalent criteria produce equal instances with a precomputed hash, so the
+ * normalized criteria can serve as a cache or ETag key, and a criteria object that can never match
+ * can be answered without querying.
+ */
+public final class NormalizedCriteria {
+
+    private final Map<String, NormalizedFilter<?>> filters;
+    private final Set<NormalizedCriteria> anyOf;
+    private final Set<NormalizedCriteria> allOf;
+    private final NormalizedCriteria not;
+    private final boolean unsatisfiable;
+    private final int hash;
+    private String canonicalForm;
+
+    private NormalizedCriteria(Map<String, NormalizedFilter<?>> filters, Set<NormalizedCriteria> anyOf,
+                               Set<NormalizedCriteria> allOf, NormalizedCriteria not, boolean unsatisfiable) {
+        this.filters = Collections.unmodifiableMap(filters);
+        this.anyOf = anyOf != null ? Collections.unmodifiableSet(anyOf) : null;
+        this.allOf = allOf != null ? Collections.unmodifiableSet(allOf) : null;
+        this.not = not;
+        this.unsatisfiable = unsatisfiable || filters.values().stream().anyMatch(NormalizedFilter::isUnsatisfiable);
+        this.hash = this.unsatisfiable ? 0 : Objects.hash(filters, anyOf, allOf, not);
+    }
+
+    /**
+     * Creates a builder collecting the filters of a criteria object.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The normalized filters, keyed by field name in sorted order.
+     *
+     * @return an unmodifiable view of the filters
+     */
+    public Map<String, NormalizedFilter<?>> getFilters() {
+        return filters;
+    }
+
+    /**
+     * The {@code anyOf} branches that can still match, in no particular order.
+     *
+     * @return the branches, or null if the group does not restrict anything
+     */
+    public Set<NormalizedCriteria> getAnyOf() {
+        return anyOf;
+    }
+
+    /**
+     * The {@code allOf} branches that restrict anything, in no particular order.
+     *
+     * @return the branches, or null if the group does not restrict anything
+     */
+    public Set<NormalizedCriteria> getAllOf() {
+        return allOf;
+    }
+
+    /**
+     * The negated criteria.
+     *
+     * @return the negated criteria, or null if the group does not restrict anything
+     */
+    public NormalizedCriteria getNot() {
+        return not;
+    }
+
+    /**
+     * Whether no row can match the criteria, because one of its filters or groups can never match.
+     *
+     * @return true if the criteria is unsatisfiable
+     */
+    public boolean isUnsatisfiable() {
+        return unsatisfiable;
+    }
+
+    /**
+     * Whether the criteria has no conditions left and therefore matches every row.
+     *
+     * @return true if the criteria is unconstrained
+     */
+    public boolean isUnconstrained() {
+        return !unsatisfiable && anyOf == null && allOf == null && not == null
+                && filters.values().stream().allMatch(NormalizedFilter::isUnconstrained);
+    }
+
+    /**
+     * An unambiguous encoding of the criteria, equal for equal instances and different for
+     * different ones, unlike the hash code. Filters are written in field order and the branches
+     * of a group in the order of their own encodings, so the form can be digested into a stable key.
+     *
+     * @return the canonical form of the criteria
+     */
+    public String canonicalForm() {
+        String form = canonicalForm;
+        if (form == null) {
+            StringBuilder sb = new StringBuilder();
+            appendCanonicalForm(sb);
+            form = sb.toString();
+            canonicalForm = form;  // Immutable, so a racing thread computes the same value
+        }
+        return form;
+    }
+
+    private void appendCanonicalForm(StringBuilder sb) {
+        if (unsatisfiable) {
+            sb.append('U');
+            return;
+        }
+        sb.append(filters.size()).append('#');
+        for (Map.Entry<String, NormalizedFilter<?>> entry : filters.entrySet()) {
+            NormalizedFilter.appendValue(sb, entry.getKey());
+            entry.getValue().appendCanonicalForm(sb);
+        }
+        appendBranches(sb, anyOf);
+        appendBranches(sb, allOf);
+        NormalizedFilter.appendValue(sb, not != null ? not.canonicalForm() : null);
+    }
+
+    private static void appendBranches(StringBuilder sb, Set<NormalizedCriteria> branches) {
+        if (branches == null) {
+            sb.append('~');
+            return;
+        }
+        List<String> forms = new ArrayList<>(branches.size());
+        for (NormalizedCriteria branch : branches) {
+            forms.add(branch.canonicalForm());
+        }
+        Collections.sort(forms);
+        sb.append(forms.size()).append('#');
+        for (String form : forms) {
+            NormalizedFilter.appendValue(sb, form);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof NormalizedCriteria that) || hash != that.hash) {
+            return false;
+        }
+        if (unsatisfiable || that.unsatisfiable) {
+            return unsatisfiable == that.unsatisfiable;
+        }
+        return filters.equals(that.filters)
+                && Objects.equals(anyOf, that.anyOf)
+                && Objects.equals(allOf, that.allOf)
+                && Objects.equals(not, that.not);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        if (unsatisfiable) {
+            return "NormalizedCriteria [unsatisfiable]";
+        }
+        StringBuilder sb = new StringBuilder("NormalizedCriteria ").append(filters);
+        if (anyOf != null) sb.append(" anyOf=").append(anyOf);
+        if (allOf != null) sb.append(" allOf=").append(allOf);
+        if (not != null) sb.append(" not=").append(not);
+        return sb.toString();
+    }
+
+    /**
+     * Builder for {@link NormalizedCriteria}.
+     */
+    public static final class Builder {
+
+        private final Map<String, NormalizedFilter<?>> filters = new TreeMap<>();
+        private Collection<NormalizedCriteria> anyOf;
+        private Collection<NormalizedCriteria> allOf;
+        private NormalizedCriteria not;
+
+        private Builder() {
+        }
+
+        /**
+         * Normalizes and adds the filter of a field. Null filters are skipped.
+         *
+         * @param name the name of the field
+         * @param rangeFilter the filter of the field, or null
+         * @param <F> the type of the field being filtered
+         * @return this builder
+         */
+        public <F extends Comparable<? super F>> Builder add(String name, RangeFilter<F> rangeFilter) {
+            if (rangeFilter != null) {
+                filters.put(name, FilterNormalizer.normalize(rangeFilter));
+            }
+            return this;
+        }
+
+        /**
+         * Sets the branches of which at least one must match. A null or empty collection adds no group.
+         *
+         * @param branches the normalized branches
+         * @return this builder
+         */
+        public Builder anyOf(Collection<NormalizedCriteria> branches) {
+            this.anyOf = branches;
+            return this;
+        }
+
+        /**
+         * Sets the branches that must all match. A null or empty collection adds no group.
+         *
+         * @param branches the normalized branches
+         * @return this builder
+         */
+        public Builder allOf(Collection<NormalizedCriteria> branches) {
+            this.allOf = branches;
+            return this;
+        }
+
+        /**
+         * Sets the criteria that must not match.
+         *
+         * @param negated the normalized negated criteria, or null
+         * @return this builder
+         */
+        public Builder not(NormalizedCriteria negated) {
+            this.not = negated;
+            return this;
+        }
+
+        /**
+         * Builds the normalized criteria, dropping groups that do not restrict anything.
+         *
+         * @return the normalized criteria
+         */
+        public NormalizedCriteria build() {
+            boolean unsatisfiable = false;
+
+            Set<NormalizedCriteria> alternatives = null;
+            if (anyOf != null && !anyOf.isEmpty()) {
+                alternatives = new HashSet<>();
+                for (NormalizedCriteria branch : anyOf) {
+                    if (branch.isUnconstrained()) {
+                        alternatives = null;
+                        break;
+                    }
+                    if (!branch.isUnsatisfiable()) {
+                        alternatives.add(branch);
+                    }
+                }
+                unsatisfiable = alternatives != null && alternatives.isEmpty();
+            }
+
+            Set<NormalizedCriteria> conjuncts = null;
+            if (allOf != null && !allOf.isEmpty()) {
+                conjuncts = new HashSet<>();
+                for (NormalizedCriteria branch : allOf) {
+                    unsatisfiable |= branch.isUnsatisfiable();
+                    if (!branch.isUnconstrained()) {
+                        conjuncts.add(branch);
+                    }
+                }
+                if (conjuncts.isEmpty()) {
+                    conjuncts = null;
+                }
+            }
+
+            NormalizedCriteria negated = not;
+            if (negated != null) {
+                unsatisfiable |= negated.isUnconstrained();
+                if (negated.isUnsatisfiable()) {
+                    negated = null;
+                }
+            }
+            return new NormalizedCriteria(new TreeMap<>(filters), alternatives, conjuncts, negated, unsatisfiable);
+        }
+    }
+}
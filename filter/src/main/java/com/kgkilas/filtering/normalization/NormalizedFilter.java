@@ -0,0 +1,208 @@
+package com.kgkilas.filtering.normalization;
+
+import com.kgkilas.filtering.filters.RangeFilter;
+import com.kgkilas.filtering.filters.StringFilter;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable canonical form of a range filter produced by {@link FilterNormalizer}. Two filters
+ * selecting the same values through the same conditions normalize to equal instances, and the
+ * hash code is computed once, which makes normalized filters usable as cache keys.
+ *
+ * @param <T> the type of the field being filtered
+ */
+@Getter
+public final class NormalizedFilter<T extends Comparable<? super T>> {
+
+    private final boolean unsatisfiable;
+    private final boolean stringFilter;
+    private final T lowerBound;
+    private final boolean lowerInclusive;
+    private final T upperBound;
+    private final boolean upperInclusive;
+    private final List<T> in;
+    private final List<T> notIn;
+    private final T like;
+    private final String contains;
+    private final String doesNotContain;
+    private final List<String> tokens;
+    private final int hash;
+
+    NormalizedFilter(boolean unsatisfiable, boolean stringFilter, T lowerBound, boolean lowerInclusive, T upperBound, boolean upperInclusive,
+                     List<T> in, List<T> notIn, T like, String contains, String doesNotContain, List<String> tokens) {
+        this.unsatisfiable = unsatisfiable;
+        this.stringFilter = stringFilter;
+        this.lowerBound = lowerBound;
+        this.lowerInclusive = lowerBound != null && lowerInclusive;
+        this.upperBound = upperBound;
+        this.upperInclusive = upperBound != null && upperInclusive;
+        this.in = in != null ? List.copyOf(in) : null;
+        this.notIn = notIn != null ? List.copyOf(notIn) : null;
+        this.like = like;
+        this.contains = contains;
+        this.doesNotContain = doesNotContain;
+        this.tokens = tokens != null ? List.copyOf(tokens) : null;
+        this.hash = unsatisfiable ? 0 : Objects.hash(stringFilter, this.lowerBound, this.lowerInclusive, this.upperBound,
+                this.upperInclusive, this.in, this.notIn, this.like, this.contains, this.doesNotContain, this.tokens);
+    }
+
+    /**
+     * Creates the normalized form of a filter that can never match.
+     *
+     * @param stringFilter whether the source filter is a string filter
+     * @param <T> the type of the field being filtered
+     * @return an unsatisfiable normalized filter
+     */
+    static <T extends Comparable<? super T>> NormalizedFilter<T> unsatisfiable(boolean stringFilter) {
+        return new NormalizedFilter<>(true, stringFilter, null, false, null, false, null, null, null, null, null, null);
+    }
+
+    /**
+     * Whether the filter has no conditions left and therefore matches every non-null and null value alike.
+     *
+     * @return true if the filter is unconstrained
+     */
+    public boolean isUnconstrained() {
+        return !unsatisfiable && lowerBound == null && upperBound == null && in == null && notIn == null
+                && like == null && contains == null && doesNotContain == null && tokens == null;
+    }
+
+    /**
+     * Converts the canonical form back into a filter that renders the same conditions.
+     * Only meaningful for satisfiable filters.
+     *
+     * @return a new range filter, a {@link StringFilter} for string fields
+     */
+    @SuppressWarnings("unchecked")
+    public RangeFilter<T> toRangeFilter() {
+        RangeFilter<T> filter = stringFilter ? (RangeFilter<T>) new StringFilter() : new RangeFilter<>();
+        if (in != null && in.size() == 1) {
+            filter.setEquals(in.get(0));
+        } else if (in != null) {
+            filter.setIn(in);
+        }
+        if (notIn != null) {
+            filter.setNotIn(notIn);
+        }
+        if (lowerBound != null) {
+            if (lowerInclusive) {
+                filter.setGreaterThanOrEqual(lowerBound);
+            } else {
+                filter.setGreaterThan(lowerBound);
+            }
+        }
+        if (upperBound != null) {
+            if (upperInclusive) {
+                filter.setLessThanOrEqual(upperBound);
+            } else {
+                filter.setLessThan(upperBound);
+            }
+        }
+        if (like != null) {
+            filter.setLike(like);
+        }
+        if (filter instanceof StringFilter string) {
+            string.setContains(contains);
+            string.setDoesNotContain(doesNotContain);
+            string.setMatchesTokens(tokens != null ? String.join(" ", tokens) : null);
+        }
+        return filter;
+    }
+
+    /**
+     * Appends an injective encoding of the filter: every value is written with its length, so
+     * values containing separators cannot be confused with neighbouring values.
+     *
+     * @param sb the builder to append to
+     */
+    void appendCanonicalForm(StringBuilder sb) {
+        if (unsatisfiable) {
+            sb.append('U');
+            return;
+        }
+        sb.append(stringFilter ? 'S' : 'R');
+        appendValue(sb, lowerBound);
+        sb.append(lowerInclusive ? '[' : '(');
+        appendValue(sb, upperBound);
+        sb.append(upperInclusive ? ']' : ')');
+        appendValues(sb, in);
+        appendValues(sb, notIn);
+        appendValue(sb, like);
+        appendValue(sb, contains);
+        appendValue(sb, doesNotContain);
+        appendValues(sb, tokens);
+    }
+
+    static void appendValue(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append('~');
+            return;
+        }
+        String text = value.toString();
+        sb.append(text.length()).append(':').append(text);
+    }
+
+    private static void appendValues(StringBuilder sb, List<?> values) {
+        if (values == null) {
+            sb.append('~');
+            return;
+        }
+        sb.append(values.size()).append('#');
+        for (Object value : values) {
+            appendValue(sb, value);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof NormalizedFilter<?> that) || hash != that.hash) {
+            return false;
+        }
+        if (unsatisfiable || that.unsatisfiable) {
+            return unsatisfiable == that.unsatisfiable;
+        }
+        return stringFilter == that.stringFilter
+                && lowerInclusive == that.lowerInclusive
+                && upperInclusive == that.upperInclusive
+                && Objects.equals(lowerBound, that.lowerBound)
+                && Objects.equals(upperBound, that.upperBound)
+                && Objects.equals(in, that.in)
+                && Objects.equals(notIn, that.notIn)
+                && Objects.equals(like, that.like)
+                && Objects.equals(contains, that.contains)
+                && Objects.equals(doesNotContain, that.doesNotContain)
+                && Objects.equals(tokens, that.tokens);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        if (unsatisfiable) {
+            return "NormalizedFilter [unsatisfiable]";
+        }
+        StringBuilder sb = new StringBuilder("NormalizedFilter [");
+        if (lowerBound != null) sb.append(lowerInclusive ? "greaterThanOrEqual=" : "greaterThan=").append(lowerBound).append(", ");
+        if (upperBound != null) sb.append(upperInclusive ? "lessThanOrEqual=" : "lessThan=").append(upperBound).append(", ");
+        if (in != null) sb.append("in=").append(in).append(", ");
+        if (notIn != null) sb.append("notIn=").append(notIn).append(", ");
+        if (like != null) sb.append("like=").append(like).append(", ");
+        if (contains != null) sb.append("contains=").append(contains).append(", ");
+        if (doesNotContain != null) sb.append("doesNotContain=").append(doesNotContain).append(", ");
+        if (tokens != null) sb.append("matchesTokens=").append(tokens).append(", ");
+        if (sb.charAt(sb.length() - 2) == ',') {
+            sb.setLength(sb.length() - 2);
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package com.kgkilas.filtering.processor;
+
+import com.kgkilas.filtering.specification.JoinStrategy;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maps a filter field of a {@link FilterCriteria} class to an attribute of the filtered entity,
+ * or to an attribute of an associated entity when {@link #join()} is set.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface FilterAttribute {
+
+    /**
+     * The attribute to filter on, in the entity itself or in the joined entity.
+     *
+     * @return the attribute name
+     */
+    String value();
+
+    /**
+     * The association of the entity to navigate before filtering, or empty to filter the entity itself.
+     *
+     * @return the association attribute name
+     */
+    String join() default "";
+
+    /**
+     * How the association is rendered when {@link #join()} is set. {@link JoinStrategy#TWO_PHASE}
+     * and {@link JoinStrategy#AUTO} are applied when a resolver is passed to the generated builder
+     * and fall back to a plain join otherwise.
+     *
+     * @return the join strategy
+     */
+    JoinStrategy joinStrategy() default JoinStrategy.JOIN;
+}
@@ -0,0 +1,25 @@
+package com.kgkilas.filtering.processor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a criteria class for which a specification builder is generated at compile time.
+ * The generated class is named after the criteria class with a {@code SpecificationBuilder}
+ * suffix, lives in the same package and exposes static {@code build} methods.
+ * Only fields annotated with {@link FilterAttribute} take part in the generated specification.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface FilterCriteria {
+
+    /**
+     * The entity filtered by the criteria class. Its JPA static metamodel class
+     * (the entity name followed by an underscore) is used for typed paths.
+     *
+     * @return the entity class
+     */
+    Class<?> entity();
+}
@@ -0,0 +1,39 @@
+package com.kgkilas.filtering.processor;
+
+import java.util.List;
+
+/**
+ * Implemented by {@link FilterCriteria} classes that nest boolean groups of themselves.
+ * The generated builder ANDs the groups with the filters of the criteria: every {@code allOf}
+ * branch must match, at least one {@code anyOf} branch must match, and {@code not} must not match.
+ * Branches of {@code anyOf} that only restrict the same field to a set of values are merged into a
+ * single {@code IN} before rendering, which requires a no-argument constructor and setters for the
+ * annotated fields.
+ * Association filters inside groups should use a semi-join strategy, because a plain join
+ * restricts the whole query rather than the branch it appears in.
+ *
+ * @param <C> the criteria type itself
+ */
+public interface FilterGroups<C> {
+
+    /**
+     * The branches of which at least one must match.
+     *
+     * @return the branches, or null
+     */
+    List<C> getAnyOf();
+
+    /**
+     * The branches that must all match.
+     *
+     * @return the branches, or null
+     */
+    List<C> getAllOf();
+
+    /**
+     * The criteria that must not match.
+     *
+     * @return the negated criteria, or null
+     */
+    C getNot();
+}
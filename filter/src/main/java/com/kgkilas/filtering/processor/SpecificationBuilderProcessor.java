@@ -0,0 +1,432 @@
+package com.kgkilas.filtering.processor;
+
+import com.kgkilas.filtering.specification.JoinStrategy;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates a specification builder for every class annotated with {@link FilterCriteria}.
+ * The generated code reads each annotated filter once, navigates typed metamodel paths and
+ * collects the predicates into a fixed-size array, so building a specification involves
+ * neither reflection nor intermediate specification lists.
+ */
+@SupportedAnnotationTypes("com.kgkilas.filtering.processor.FilterCriteria")
+public class SpecificationBuilderProcessor extends AbstractProcessor {
+
+    private static final String GENERATED_SUFFIX = "SpecificationBuilder";
+    private static final String METAMODEL_SUFFIX = "_";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(FilterCriteria.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@FilterCriteria can only be applied to classes");
+                continue;
+            }
+            TypeElement criteriaElement = (TypeElement) element;
+            try {
+                generate(criteriaElement, resolveEntity(criteriaElement));
+            } catch (IllegalStateException e) {
+                error(criteriaElement, e.getMessage());
+            } catch (IOException e) {
+                error(criteriaElement, "Could not write specification builder: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resolves the entity declared by {@link FilterCriteria#entity()}.
+     *
+     * @param criteriaElement the annotated criteria class
+     * @return the entity type element
+     */
+    private TypeElement resolveEntity(TypeElement criteriaElement) {
+        TypeMirror entityType;
+        try {
+            criteriaElement.getAnnotation(FilterCriteria.class).entity();
+            throw new IllegalStateException("Could not resolve the entity of " + criteriaElement);
+        } catch (MirroredTypeException e) {
+            entityType = e.getTypeMirror();
+        }
+        return (TypeElement) processingEnv.getTypeUtils().asElement(entityType);
+    }
+
+    /**
+     * Collects the annotated filter fields of a criteria class.
+     *
+     * @param criteriaElement the annotated criteria class
+     * @param entityElement the filtered entity
+     * @return the filter fields, in declaration order
+     */
+    private List<FilterField> collectFields(TypeElement criteriaElement, TypeElement entityElement) {
+        List<FilterField> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(criteriaElement.getEnclosedElements())) {
+            FilterAttribute filterAttribute = field.getAnnotation(FilterAttribute.class);
+            if (filterAttribute == null) {
+                continue;
+            }
+            String name = field.getSimpleName().toString();
+            String join = filterAttribute.join();
+            JoinStrategy joinStrategy = join.isEmpty() ? JoinStrategy.JOIN : filterAttribute.joinStrategy();
+            TypeElement joinedElement = null;
+            boolean plural = false;
+            if (!join.isEmpty()) {
+                TypeMirror associationType = findAttributeType(entityElement, join);
+                plural = isCollection(associationType);
+                if (plural) {
+                    associationType = ((DeclaredType) associationType).getTypeArguments().get(0);
+                }
+                joinedElement = (TypeElement) processingEnv.getTypeUtils().asElement(associationType);
+            }
+            fields.add(new FilterField(name, field.asType().toString(), filterAttribute.value(), join,
+                    joinStrategy, joinedElement, plural));
+        }
+        return fields;
+    }
+
+    /**
+     * Finds the declared type of an attribute of an entity, including inherited attributes.
+     *
+     * @param entityElement the entity
+     * @param attribute the attribute name
+     * @return the attribute type
+     */
+    private TypeMirror findAttributeType(TypeElement entityElement, String attribute) {
+        TypeElement current = entityElement;
+        while (current != null) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (field.getSimpleName().contentEquals(attribute)) {
+                    return field.asType();
+                }
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) processingEnv.getTypeUtils().asElement(superclass)
+                    : null;
+        }
+        throw new IllegalStateException("Entity " + entityElement + " has no attribute '" + attribute + "'");
+    }
+
+    /**
+     * Checks whether a type is a {@link java.util.Collection}.
+     *
+     * @param type the type to check
+     * @return true if the type is a collection
+     */
+    private boolean isCollection(TypeMirror type) {
+        TypeMirror collectionType = processingEnv.getElementUtils().getTypeElement("java.util.Collection").asType();
+        return type.getKind() == TypeKind.DECLARED
+                && processingEnv.getTypeUtils().isAssignable(
+                processingEnv.getTypeUtils().erasure(type), processingEnv.getTypeUtils().erasure(collectionType));
+    }
+
+    /**
+     * Writes the specification builder of a criteria class.
+     *
+     * @param criteriaElement the annotated criteria class
+     * @param entityElement the filtered entity
+     * @throws IOException if the source file cannot be written
+     */
+    private void generate(TypeElement criteriaElement, TypeElement entityElement) throws IOException {
+        List<FilterField> fields = collectFields(criteriaElement, entityElement);
+        String packageName = processingEnv.getElementUtils().getPackageOf(criteriaElement).getQualifiedName().toString();
+        String builderName = criteriaElement.getSimpleName() + GENERATED_SUFFIX;
+        String criteria = criteriaElement.getQualifiedName().toString();
+        String entity = entityElement.getQualifiedName().toString();
+        String entityMetamodel = entity + METAMODEL_SUFFIX;
+        boolean groups = implementsFilterGroups(criteriaElement);
+
+        JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(
+                packageName.isEmpty() ? builderName : packageName + "." + builderName, criteriaElement);
+        try (PrintWriter out = new PrintWriter(sourceFile.openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            if (groups) {
+                out.println("import com.kgkilas.filtering.normalization.DisjunctionRewriter;");
+            }
+            out.println("import com.kgkilas.filtering.normalization.NormalizedCriteria;");
+            out.println("import com.kgkilas.filtering.specification.CriteriaSpecification;");
+            out.println("import com.kgkilas.filtering.specification.JoinStrategy;");
+            out.println("import com.kgkilas.filtering.specification.TwoPhaseJoinResolver;");
+            out.println("import jakarta.persistence.criteria.Predicate;");
+            out.println("import org.springframework.data.jpa.domain.Specification;");
+            out.println();
+            if (groups) {
+                out.println("import java.util.ArrayList;");
+            }
+            out.println("import java.util.Arrays;");
+            out.println("import java.util.LinkedHashMap;");
+            if (groups) {
+                out.println("import java.util.List;");
+            }
+            out.println("import java.util.Map;");
+            out.println();
+            out.println("/**");
+            out.println(" * Specification builder for {@link " + criteria + "}, generated from its {@code @FilterAttribute} fields.");
+            out.println(" */");
+            out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+            out.println("public final class " + builderName + " {");
+            out.println();
+            out.println("    private " + builderName + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    public static Specification<" + entity + "> build(" + criteria + " criteria) {");
+            out.println("        return build(criteria, null);");
+            out.println("    }");
+            out.println();
+            out.println("    public static Specification<" + entity + "> build(" + criteria + " criteria, TwoPhaseJoinResolver joinResolver) {");
+            out.println("        if (criteria == null) {");
+            out.println("            return (root, query, criteriaBuilder) -> criteriaBuilder.conjunction();");
+            out.println("        }");
+            writeFieldReads(out, fields, entity);
+            if (groups) {
+                out.println("        final Map<String, Specification<" + entity + ">> groups = buildGroups(criteria, joinResolver);");
+            }
+            out.println("        return (root, query, criteriaBuilder) -> {");
+            out.println("            Predicate[] predicates = new Predicate[" + (groups ? fields.size() + 1 : fields.size()) + "];");
+            out.println("            int count = 0;");
+            for (FilterField field : fields) {
+                out.println("            if (" + field.name() + " != null) {");
+                out.println("                predicates[count++] = " + predicateExpression(field, entityMetamodel, "                        ") + ";");
+                out.println("            }");
+            }
+            if (groups) {
+                out.println("            if (!groups.isEmpty()) {");
+                out.println("                predicates[count++] = CriteriaSpecification.allOf(groups.values()).toPredicate(root, query, criteriaBuilder);");
+                out.println("            }");
+            }
+            out.println("            return criteriaBuilder.and(Arrays.copyOf(predicates, count));");
+            out.println("        };");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * Builds one specification per non-null filter, keyed by field name, for callers that need");
+            out.println("     * to leave individual filters out, such as disjunctive facets.");
+            out.println("     */");
+            out.println("    public static Map<String, Specification<" + entity + ">> buildDimensions(" + criteria + " criteria, TwoPhaseJoinResolver joinResolver) {");
+            out.println("        Map<String, Specification<" + entity + ">> dimensions = new LinkedHashMap<>();");
+            out.println("        if (criteria == null) {");
+            out.println("            return dimensions;");
+            out.println("        }");
+            writeFieldReads(out, fields, entity);
+            for (FilterField field : fields) {
+                out.println("        if (" + field.name() + " != null) {");
+                out.println("            dimensions.put(\"" + field.name() + "\", (root, query, criteriaBuilder) -> "
+                        + predicateExpression(field, entityMetamodel, "                    ") + ");");
+                out.println("        }");
+            }
+            if (groups) {
+                out.println("        dimensions.putAll(buildGroups(criteria, joinResolver));");
+            }
+            out.println("        return dimensions;");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * Normalizes every non-null filter, keyed by field name, without building any specification.");
+            out.println("     */");
+            out.println("    public static NormalizedCriteria normalize(" + criteria + " criteria) {");
+            out.println("        NormalizedCriteria.Builder builder = NormalizedCriteria.builder();");
+            out.println("        if (criteria != null) {");
+            for (FilterField field : fields) {
+                out.println("            builder.add(\"" + field.name() + "\", criteria." + getterName(field.name()) + "());");
+            }
+            if (groups) {
+                out.println("            if (criteria.getAnyOf() != null) {");
+                out.println("                builder.anyOf(criteria.getAnyOf().stream().map(" + builderName + "::normalize).toList());");
+                out.println("            }");
+                out.println("            if (criteria.getAllOf() != null) {");
+                out.println("                builder.allOf(criteria.getAllOf().stream().map(" + builderName + "::normalize).toList());");
+                out.println("            }");
+                out.println("            if (criteria.getNot() != null) {");
+                out.println("                builder.not(normalize(criteria.getNot()));");
+                out.println("            }");
+            }
+            out.println("        }");
+            out.println("        return builder.build();");
+            out.println("    }");
+            if (groups) {
+                writeGroupMethods(out, fields, builderName, criteria, entity);
+            }
+            out.println("}");
+        }
+    }
+
+    /**
+     * Writes the methods rendering the {@link FilterGroups} of a criteria class. Each group is built by
+     * recursing into the generated {@code build} method; {@code anyOf} branches are rewritten first, and
+     * merged value-list branches are recreated through the criteria's no-argument constructor and setters.
+     *
+     * @param out the source writer
+     * @param fields the filter fields
+     * @param builderName the simple name of the generated builder
+     * @param criteria the qualified name of the criteria class
+     * @param entity the qualified name of the filtered entity
+     */
+    private void writeGroupMethods(PrintWriter out, List<FilterField> fields, String builderName, String criteria, String entity) {
+        out.println();
+        out.println("    private static Map<String, Specification<" + entity + ">> buildGroups(" + criteria + " criteria, TwoPhaseJoinResolver joinResolver) {");
+        out.println("        Map<String, Specification<" + entity + ">> groups = new LinkedHashMap<>();");
+        out.println("        if (criteria.getAnyOf() != null && !criteria.getAnyOf().isEmpty()) {");
+        out.println("            List<Specification<" + entity + ">> alternatives = new ArrayList<>();");
+        out.println("            for (" + criteria + " branch : DisjunctionRewriter.mergeInLists(criteria.getAnyOf(), " + builderName + "::normalize, " + builderName + "::inBranch)) {");
+        out.println("                alternatives.add(build(branch, joinResolver));");
+        out.println("            }");
+        out.println("            groups.put(\"anyOf\", CriteriaSpecification.anyOf(alternatives));");
+        out.println("        }");
+        out.println("        if (criteria.getAllOf() != null && !criteria.getAllOf().isEmpty()) {");
+        out.println("            List<Specification<" + entity + ">> conjuncts = new ArrayList<>();");
+        out.println("            for (" + criteria + " branch : criteria.getAllOf()) {");
+        out.println("                conjuncts.add(build(branch, joinResolver));");
+        out.println("            }");
+        out.println("            groups.put(\"allOf\", CriteriaSpecification.allOf(conjuncts));");
+        out.println("        }");
+        out.println("        if (criteria.getNot() != null) {");
+        out.println("            groups.put(\"not\", CriteriaSpecification.not(build(criteria.getNot(), joinResolver)));");
+        out.println("        }");
+        out.println("        return groups;");
+        out.println("    }");
+        out.println();
+        out.println("    @SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+        out.println("    private static " + criteria + " inBranch(String field, List<Object> values) {");
+        out.println("        " + criteria + " branch = new " + criteria + "();");
+        out.println("        switch (field) {");
+        for (FilterField field : fields) {
+            out.println("            case \"" + field.name() + "\" -> {");
+            out.println("                " + field.type() + " filter = new " + field.type() + "();");
+            out.println("                filter.setIn((List) values);");
+            out.println("                branch." + setterName(field.name()) + "(filter);");
+            out.println("            }");
+        }
+        out.println("            default -> throw new IllegalArgumentException(\"Unknown filter field: \" + field);");
+        out.println("        }");
+        out.println("        return branch;");
+        out.println("    }");
+    }
+
+    /**
+     * Checks whether a criteria class implements {@link FilterGroups}.
+     *
+     * @param criteriaElement the annotated criteria class
+     * @return true if the criteria class nests boolean groups
+     */
+    private boolean implementsFilterGroups(TypeElement criteriaElement) {
+        TypeMirror groupsType = processingEnv.getElementUtils().getTypeElement(FilterGroups.class.getCanonicalName()).asType();
+        return processingEnv.getTypeUtils().isAssignable(
+                processingEnv.getTypeUtils().erasure(criteriaElement.asType()), processingEnv.getTypeUtils().erasure(groupsType));
+    }
+
+    /**
+     * Writes the specification a field delegates to when its association is not rendered as a plain join.
+     * Two-phase strategies are resolved when the returned specification is first applied, once per build.
+     *
+     * @param out the source writer
+     * @param field the filter field
+     * @param entity the qualified name of the filtered entity
+     */
+    private void writeDelegateSpecification(PrintWriter out, FilterField field, String entity) {
+        String arguments = "\"" + field.join() + "\", " + field.name() + ", \"" + field.attribute() + "\"";
+        switch (field.joinStrategy()) {
+            case EXISTS -> out.println("        final Specification<" + entity + "> " + delegateName(field) + " = " + field.name() + " != null"
+                    + " ? CriteriaSpecification.buildExistsJoinSpecification(" + arguments + ") : null;");
+            case IN_SUBQUERY -> out.println("        final Specification<" + entity + "> " + delegateName(field) + " = " + field.name() + " != null"
+                    + " ? CriteriaSpecification.buildInSubqueryJoinSpecification(" + arguments + ") : null;");
+            case TWO_PHASE, AUTO -> out.println("        final Specification<" + entity + "> " + delegateName(field) + " = " + field.name() + " != null && joinResolver != null"
+                    + " ? joinResolver.resolveLazily(" + entity + ".class, " + arguments + ", JoinStrategy." + field.joinStrategy() + ") : null;");
+            case JOIN -> {
+                // Rendered inline through typed metamodel paths
+            }
+        }
+    }
+
+    /**
+     * Writes the local variables holding the filters of the criteria and their delegate specifications.
+     *
+     * @param out the source writer
+     * @param fields the filter fields
+     * @param entity the qualified name of the filtered entity
+     */
+    private void writeFieldReads(PrintWriter out, List<FilterField> fields, String entity) {
+        for (FilterField field : fields) {
+            out.println("        final " + field.type() + " " + field.name() + " = criteria." + getterName(field.name()) + "();");
+        }
+        for (FilterField field : fields) {
+            writeDelegateSpecification(out, field, entity);
+        }
+    }
+
+    /**
+     * Builds the expression computing the predicate of a field.
+     *
+     * @param field the filter field
+     * @param entityMetamodel the qualified name of the entity metamodel class
+     * @param continuationIndent the indentation of wrapped lines
+     * @return the predicate expression
+     */
+    private String predicateExpression(FilterField field, String entityMetamodel, String continuationIndent) {
+        String typedPath;
+        if (field.join().isEmpty()) {
+            typedPath = "root.get(" + entityMetamodel + "." + field.attribute() + ")";
+        } else {
+            String joinedMetamodel = field.joinedElement().getQualifiedName() + METAMODEL_SUFFIX;
+            typedPath = "root." + (field.plural() ? "join" : "get") + "(" + entityMetamodel + "." + field.join() + ")"
+                    + ".get(" + joinedMetamodel + "." + field.attribute() + ")";
+        }
+        String inlinePredicate = "CriteriaSpecification.buildRangePredicate(" + typedPath + ", " + field.name() + ", criteriaBuilder)";
+        if (field.joinStrategy() == JoinStrategy.JOIN) {
+            return inlinePredicate;
+        }
+        return delegateName(field) + " != null\n"
+                + continuationIndent + "? " + delegateName(field) + ".toPredicate(root, query, criteriaBuilder)\n"
+                + continuationIndent + ": " + inlinePredicate;
+    }
+
+    private static String delegateName(FilterField field) {
+        return field.name() + "Specification";
+    }
+
+    private static String getterName(String fieldName) {
+        return "get" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+    }
+
+    private static String setterName(String fieldName) {
+        return "set" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * A filter field of a criteria class together with the entity attribute it maps to.
+     */
+    private record FilterField(String name, String type, String attribute, String join, JoinStrategy joinStrategy,
+                               TypeElement joinedElement, boolean plural) {
+    }
+}
@@ -0,0 +1,169 @@
+package com.kgkilas.filtering.specification;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Map;
+
+/**
+ * Runs set-based {@code UPDATE} and {@code DELETE} statements whose {@code WHERE} clause is built
+ * from the same specifications used for querying, so matching rows are never loaded as entities.
+ * Specifications are applied the same way as {@code JpaSpecificationExecutor.delete}: they receive the
+ * root of the statement and a placeholder {@link CriteriaQuery} for subqueries.
+ * Bulk statements bypass the persistence context and entity listeners.
+ *
+ * @param <T> the type of the entity
+ */
+public class CriteriaBulkOperations<T> {
+
+    private final EntityManager entityManager;
+    private final Class<T> entityClass;
+
+    /**
+     * Creates bulk operations for an entity.
+     *
+     * @param entityManager the entity manager executing the statements
+     * @param entityClass the entity class
+     */
+    public CriteriaBulkOperations(EntityManager entityManager, Class<T> entityClass) {
+        this.entityManager = entityManager;
+        this.entityClass = entityClass;
+    }
+
+    /**
+     * Updates all rows matching the specification in a single statement.
+     * Must run inside a transaction.
+     *
+     * @param specification the filter selecting the rows to update
+     * @param assignments the new values, keyed by attribute name
+     * @return the number of updated rows
+     */
+    public int update(Specification<T> specification, Map<String, Object> assignments) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = criteriaBuilder.createCriteriaUpdate(entityClass);
+        Root<T> root = update.from(entityClass);
+        assignments.forEach(update::set);
+        Predicate predicate = toPredicate(specification, root, criteriaBuilder);
+        if (predicate != null) {
+            update.where(predicate);
+        }
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    /**
+     * Deletes all rows matching the specification in a single statement.
+     * Must run inside a transaction.
+     *
+     * @param specification the filter selecting the rows to delete
+     * @return the number of deleted rows
+     */
+    public int delete(Specification<T> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaDelete<T> delete = criteriaBuilder.createCriteriaDelete(entityClass);
+        Root<T> root = delete.from(entityClass);
+        Predicate predicate = toPredicate(specification, root, criteriaBuilder);
+        if (predicate != null) {
+            delete.where(predicate);
+        }
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    /**
+     * Updates the rows matching the specification one id range at a time, each range in its own
+     * transaction, which keeps row locks short on large tables. Requires a numeric identifier.
+     *
+     * @param specification the filter selecting the rows to update
+     * @param assignments the new values, keyed by attribute name
+     * @param chunkSize the width of each id range
+     * @param transactionOperations the transactions each chunk runs in
+     * @return the number of updated rows
+     */
+    public long updateInChunks(Specification<T> specification, Map<String, Object> assignments, long chunkSize, TransactionOperations transactionOperations) {
+        return runInChunks(specification, chunkSize, transactionOperations, chunk -> update(chunk, assignments));
+    }
+
+    /**
+     * Deletes the rows matching the specification one id range at a time, each range in its own
+     * transaction, which keeps row locks short on large tables. Requires a numeric identifier.
+     *
+     * @param specification the filter selecting the rows to delete
+     * @param chunkSize the width of each id range
+     * @param transactionOperations the transactions each chunk runs in
+     * @return the number of deleted rows
+     */
+    public long deleteInChunks(Specification<T> specification, long chunkSize, TransactionOperations transactionOperations) {
+        return runInChunks(specification, chunkSize, transactionOperations, this::delete);
+    }
+
+    /**
+     * Splits the id range matched by the specification into chunks and runs the statement once per chunk.
+     *
+     * @param specification the filter selecting the rows
+     * @param chunkSize the width of each id range
+     * @param transactionOperations the transactions each chunk runs in
+     * @param statement the statement to run for the specification of a chunk
+     * @return the total number of affected rows
+     */
+    private long runInChunks(Specification<T> specification, long chunkSize, TransactionOperations transactionOperations, ChunkStatement<T> statement) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        String idAttribute = CriteriaSpecification.idAttributeName(entityManager.getMetamodel().entity(entityClass));
+        Tuple bounds = transactionOperations.execute(status -> findIdBounds(specification, idAttribute));
+        if (bounds == null || bounds.get(0) == null || bounds.get(1) == null) {
+            return 0;
+        }
+
+        long affectedRows = 0;
+        long max = ((Number) bounds.get(1)).longValue();
+        for (long from = ((Number) bounds.get(0)).longValue(); from <= max; from += chunkSize) {
+            Specification<T> chunk = where(specification).and(buildIdRangeSpecification(idAttribute, from, from + chunkSize));
+            Integer chunkRows = transactionOperations.execute(status -> statement.execute(chunk));
+            affectedRows += chunkRows != null ? chunkRows : 0;
+        }
+        return affectedRows;
+    }
+
+    private Tuple findIdBounds(Specification<T> specification, String idAttribute) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+        Path<Long> idPath = root.get(idAttribute);
+        query.multiselect(criteriaBuilder.min(idPath), criteriaBuilder.max(idPath));
+        Predicate predicate = specification != null ? specification.toPredicate(root, query, criteriaBuilder) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static <T> Specification<T> buildIdRangeSpecification(String idAttribute, long fromInclusive, long toExclusive) {
+        return (root, query, criteriaBuilder) -> {
+            Path<Long> idPath = root.get(idAttribute);
+            return criteriaBuilder.and(criteriaBuilder.ge(idPath, fromInclusive), criteriaBuilder.lt(idPath, toExclusive));
+        };
+    }
+
+    private static <T> Specification<T> where(Specification<T> specification) {
+        return specification != null ? specification : (root, query, criteriaBuilder) -> criteriaBuilder.conjunction();
+    }
+
+    private Predicate toPredicate(Specification<T> specification, Root<T> root, CriteriaBuilder criteriaBuilder) {
+        return specification != null
+                ? specification.toPredicate(root, criteriaBuilder.createQuery(entityClass), criteriaBuilder)
+                : null;
+    }
+
+    /**
+     * A bulk statement run for the specification of one chunk.
+     *
+     * @param <T> the type of the entity
+     */
+    @FunctionalInterface
+    private interface ChunkStatement<T> {
+        int execute(Specification<T> specification);
+    }
+}
@@ -3,7 +3,10 @@ package com.kgkilas.filtering.specification;
 import com.kgkilas.filtering.filters.FieldType;
 import com.kgkilas.filtering.filters.RangeFilter;
 import com.kgkilas.filtering.filters.StringFilter;
+import com.kgkilas.filtering.normalization.FilterNormalizer;
+import com.kgkilas.filtering.normalization.NormalizedFilter;
 import jakarta.persistence.criteria.*;
+import jakarta.persistence.metamodel.IdentifiableType;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.*;
@@ -17,6 +20,9 @@ import java.util.stream.Collectors;
  */
 public class CriteriaSpecification<T> implements Specification<T> {
 
+    // Escape character of the LIKE patterns rendered for like, contains, doesNotContain and matchesTokens
+    static final char LIKE_ESCAPE = '\\';
+
     /**
      * Builds a specification based on a column and a range filter.
      *
@@ -39,48 +45,61 @@ public class CriteriaSpecification<T> implements Specification<T> {
     }
 
     /**
-     * Builds a predicate based on a range filter.
+     * Builds a predicate based on a range filter. The filter is {@link FilterNormalizer normalized} first,
+     * so redundant conditions are not rendered and a contradictory filter renders as a disjunction.
      *
      * @param fieldPath the path to the field being filtered
      * @param rangeFilter the range filter containing the filtering conditions
      * @param criteriaBuilder the CriteriaBuilder used to construct the predicate
      * @param <F> the type of the field being filtered
-     * @return a predicate based on the range filter conditions, or a conjunction if no conditions apply
+     * @return a predicate based on the range filter conditions, a conjunction if no conditions apply,
+     * or a disjunction if the conditions contradict each other
      */
     public static <F extends Comparable<? super F>> Predicate buildRangePredicate(Path<F> fieldPath, RangeFilter<F> rangeFilter, CriteriaBuilder criteriaBuilder) {
         Predicate predicate = criteriaBuilder.conjunction(); // Initialize the predicate to a conjunction
 
         if (rangeFilter != null && fieldPath != null) {
+            NormalizedFilter<F> normalized = FilterNormalizer.normalize(rangeFilter);
+            if (normalized.isUnsatisfiable()) {
+                return criteriaBuilder.disjunction();
+            }
+            RangeFilter<F> canonical = normalized.toRangeFilter();
             List<Predicate> predicates = new ArrayList<>();
 
-            addIfNotNull(predicates, rangeFilter.getEquals() != null,
-                    criteriaBuilder.equal(fieldPath, Optional.ofNullable(rangeFilter.getEquals()).map(FieldType::getValue).orElse(null)));
-            addIfNotNull(predicates, rangeFilter.getIn() != null && !rangeFilter.getIn().isEmpty(),
-                    fieldPath.in(mapToValues(rangeFilter.getIn())));
-            addIfNotNull(predicates, rangeFilter.getNotIn() != null && !rangeFilter.getNotIn().isEmpty(),
-                    criteriaBuilder.not(fieldPath.in(mapToValues(rangeFilter.getNotIn()))));
-            addIfNotNull(predicates, rangeFilter.getGreaterThan() != null,
-                    criteriaBuilder.greaterThan(fieldPath, Optional.ofNullable(rangeFilter.getGreaterThan()).map(FieldType::getValue).orElse(null)));
-            addIfNotNull(predicates, rangeFilter.getGreaterThanOrEqual() != null,
-                    criteriaBuilder.greaterThanOrEqualTo(fieldPath, Optional.ofNullable(rangeFilter.getGreaterThanOrEqual()).map(FieldType::getValue).orElse(null)));
-            addIfNotNull(predicates, rangeFilter.getLessThan() != null,
-                    criteriaBuilder.lessThan(fieldPath, Optional.ofNullable(rangeFilter.getLessThan()).map(FieldType::getValue).orElse(null)));
-            addIfNotNull(predicates, rangeFilter.getLessThanOrEqual() != null,
-                    criteriaBuilder.lessThanOrEqualTo(fieldPath, Optional.ofNullable(rangeFilter.getLessThanOrEqual()).map(FieldType::getValue).orElse(null)));
-            if (rangeFilter.getLike() != null) {
+            addIfNotNull(predicates, canonical.getEquals() != null,
+                    criteriaBuilder.equal(fieldPath, Optional.ofNullable(canonical.getEquals()).map(FieldType::getValue).orElse(null)));
+            addIfNotNull(predicates, canonical.getIn() != null && !canonical.getIn().isEmpty(),
+                    fieldPath.in(mapToValues(canonical.getIn())));
+            addIfNotNull(predicates, canonical.getNotIn() != null && !canonical.getNotIn().isEmpty(),
+                    criteriaBuilder.not(fieldPath.in(mapToValues(canonical.getNotIn()))));
+            addIfNotNull(predicates, canonical.getGreaterThan() != null,
+                    criteriaBuilder.greaterThan(fieldPath, Optional.ofNullable(canonical.getGreaterThan()).map(FieldType::getValue).orElse(null)));
+            addIfNotNull(predicates, canonical.getGreaterThanOrEqual() != null,
+                    criteriaBuilder.greaterThanOrEqualTo(fieldPath, Optional.ofNullable(canonical.getGreaterThanOrEqual()).map(FieldType::getValue).orElse(null)));
+            addIfNotNull(predicates, canonical.getLessThan() != null,
+                    criteriaBuilder.lessThan(fieldPath, Optional.ofNullable(canonical.getLessThan()).map(FieldType::getValue).orElse(null)));
+            addIfNotNull(predicates, canonical.getLessThanOrEqual() != null,
+                    criteriaBuilder.lessThanOrEqualTo(fieldPath, Optional.ofNullable(canonical.getLessThanOrEqual()).map(FieldType::getValue).orElse(null)));
+            if (canonical.getLike() != null) {
                 addIfNotNull(predicates,
                         true,
                         criteriaBuilder.like(
                                 fieldPath.as(String.class),
-                                "%" + Optional.ofNullable(rangeFilter.getLike()).map(FieldType::getValue).map(Object::toString).orElse("") + "%"
+                                containsPattern(Optional.ofNullable(canonical.getLike()).map(FieldType::getValue).map(Object::toString).orElse("")),
+                                LIKE_ESCAPE
                         )
                 );
             }
-            if (rangeFilter instanceof StringFilter stringFilter) {
+            if (canonical instanceof StringFilter stringFilter) {
                 addIfNotNull(predicates, stringFilter.getContains() != null,
-                        criteriaBuilder.like(criteriaBuilder.lower(fieldPath.as(String.class)), "%" + Optional.ofNullable(stringFilter.getContains()).orElse("").toLowerCase() + "%"));
+                        criteriaBuilder.like(criteriaBuilder.lower(fieldPath.as(String.class)), containsPattern(Optional.ofNullable(stringFilter.getContains()).orElse("").toLowerCase()), LIKE_ESCAPE));
                 addIfNotNull(predicates, stringFilter.getDoesNotContain() != null,
-                        criteriaBuilder.not(criteriaBuilder.like(criteriaBuilder.lower(fieldPath.as(String.class)), "%" + Optional.ofNullable(stringFilter.getDoesNotContain()).orElse("").toLowerCase() + "%")));
+                        criteriaBuilder.not(criteriaBuilder.like(criteriaBuilder.lower(fieldPath.as(String.class)), containsPattern(Optional.ofNullable(stringFilter.getDoesNotContain()).orElse("").toLowerCase()), LIKE_ESCAPE)));
+                if (stringFilter.getMatchesTokens() != null) {
+                    for (String token : stringFilter.getMatchesTokens().split(" ")) {
+                        predicates.add(criteriaBuilder.like(criteriaBuilder.lower(fieldPath.as(String.class)), containsPattern(token), LIKE_ESCAPE));
+                    }
+                }
             }
 
             if (!predicates.isEmpty()) {
@@ -91,6 +110,22 @@ public class CriteriaSpecification<T> implements Specification<T> {
         return predicate;
     }
 
+    /**
+     * Builds a {@code LIKE} pattern matching values that contain the fragment. The {@code %} and
+     * {@code _} wildcards and the escape character are escaped, so the fragment matches literally,
+     * as it does when the filter is evaluated in memory.
+     *
+     * @param fragment the fragment to search for
+     * @return the pattern, to be used with {@link #LIKE_ESCAPE}
+     */
+    static String containsPattern(String fragment) {
+        String escaped = fragment
+                .replace(String.valueOf(LIKE_ESCAPE), String.valueOf(LIKE_ESCAPE) + LIKE_ESCAPE)
+                .replace("%", LIKE_ESCAPE + "%")
+                .replace("_", LIKE_ESCAPE + "_");
+        return "%" + escaped + "%";
+    }
+
     /**
      * Adds a predicate to the list if the condition is true.
      *
@@ -138,6 +173,97 @@ public class CriteriaSpecification<T> implements Specification<T> {
         };
     }
 
+    /**
+     * Builds a join specification for filtering based on an attribute in a related entity,
+     * rendering the association with the given join strategy.
+     *
+     * @param column the name of the column representing the relationship
+     * @param rangeFilter the range filter containing the filtering conditions
+     * @param attribute the attribute in the related entity to filter on
+     * @param joinStrategy how the association is rendered; {@code null} falls back to {@link JoinStrategy#JOIN}
+     * @param <T> the type of the entity
+     * @param <F> the type of the field being filtered
+     * @return a specification that can be used for querying
+     * @throws IllegalArgumentException if the strategy needs a {@link TwoPhaseJoinResolver}
+     */
+    public static <T, F extends Comparable<? super F>> Specification<T> buildJoinSpecification(String column, RangeFilter<F> rangeFilter, String attribute, JoinStrategy joinStrategy) {
+        if (joinStrategy == null) {
+            return buildJoinSpecification(column, rangeFilter, attribute);
+        }
+        return switch (joinStrategy) {
+            case JOIN -> buildJoinSpecification(column, rangeFilter, attribute);
+            case EXISTS -> buildExistsJoinSpecification(column, rangeFilter, attribute);
+            case IN_SUBQUERY -> buildInSubqueryJoinSpecification(column, rangeFilter, attribute);
+            case TWO_PHASE, AUTO -> throw new IllegalArgumentException(
+                    "Join strategy " + joinStrategy + " requires a TwoPhaseJoinResolver");
+        };
+    }
+
+    /**
+     * Builds a semi-join specification that renders the filter on the related entity as a
+     * correlated {@code EXISTS} subquery, so to-many associations never duplicate root rows.
+     *
+     * @param column the name of the column representing the relationship
+     * @param rangeFilter the range filter containing the filtering conditions
+     * @param attribute the attribute in the related entity to filter on
+     * @param <T> the type of the entity
+     * @param <F> the type of the field being filtered
+     * @return a specification that can be used for querying
+     */
+    public static <T, F extends Comparable<? super F>> Specification<T> buildExistsJoinSpecification(String column, RangeFilter<F> rangeFilter, String attribute) {
+        return (root, query, criteriaBuilder) -> {
+            Predicate predicate = criteriaBuilder.conjunction(); // Initialize the predicate to a conjunction
+            if (column != null && rangeFilter != null && attribute != null) {
+                Subquery<Integer> subquery = query.subquery(Integer.class);
+                Join<T, Object> join = subquery.correlate(root).join(column);
+                Path<F> attributePath = join.get(attribute);
+                subquery.select(criteriaBuilder.literal(1))
+                        .where(buildRangePredicate(attributePath, rangeFilter, criteriaBuilder));
+                predicate = criteriaBuilder.exists(subquery);
+            }
+            return predicate;
+        };
+    }
+
+    /**
+     * Builds a semi-join specification that renders the filter on the related entity as
+     * {@code id IN (select id from ... join ... where ...)} on the identifier of the root entity.
+     *
+     * @param column the name of the column representing the relationship
+     * @param rangeFilter the range filter containing the filtering conditions
+     * @param attribute the attribute in the related entity to filter on
+     * @param <T> the type of the entity
+     * @param <F> the type of the field being filtered
+     * @return a specification that can be used for querying
+     */
+    public static <T, F extends Comparable<? super F>> Specification<T> buildInSubqueryJoinSpecification(String column, RangeFilter<F> rangeFilter, String attribute) {
+        return (root, query, criteriaBuilder) -> {
+            Predicate predicate = criteriaBuilder.conjunction(); // Initialize the predicate to a conjunction
+            if (column != null && rangeFilter != null && attribute != null) {
+                String idAttribute = idAttributeName(root.getModel());
+                Subquery<Object> subquery = query.subquery(Object.class);
+                Root<T> subqueryRoot = subquery.from(root.getModel());
+                Join<T, Object> join = subqueryRoot.join(column);
+                Path<F> attributePath = join.get(attribute);
+                Path<Object> subqueryId = subqueryRoot.get(idAttribute);
+                subquery.select(subqueryId)
+                        .where(buildRangePredicate(attributePath, rangeFilter, criteriaBuilder));
+                predicate = root.get(idAttribute).in(subquery);
+            }
+            return predicate;
+        };
+    }
+
+    /**
+     * Resolves the name of the identifier attribute of an entity type.
+     *
+     * @param type the entity type
+     * @return the name of its identifier attribute
+     */
+    static String idAttributeName(IdentifiableType<?> type) {
+        return type.getId(type.getIdType().getJavaType()).getName();
+    }
+
     /**
      * Combines a collection of specifications into a single specification using logical AND.
      *
@@ -166,6 +292,56 @@ public class CriteriaSpecification<T> implements Specification<T> {
         };
     }
 
+    /**
+     * Combines a collection of specifications into a single specification using logical AND.
+     * Equivalent to {@link #combine(Collection)}, named to pair with {@link #anyOf(Collection)}.
+     *
+     * @param specifications the collection of specifications to combine
+     * @param <T> the type of the entity
+     * @return a combined specification, or a conjunction if the collection is empty
+     */
+    public static <T> Specification<T> allOf(Collection<Specification<T>> specifications) {
+        return combine(specifications);
+    }
+
+    /**
+     * Combines a collection of specifications into a single specification using logical OR.
+     *
+     * @param specifications the collection of specifications to combine
+     * @param <T> the type of the entity
+     * @return a combined specification, or a disjunction if the collection is empty
+     */
+    public static <T> Specification<T> anyOf(Collection<Specification<T>> specifications) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (specifications != null) {
+                for (Specification<T> spec : specifications) {
+                    Predicate predicate = spec != null ? spec.toPredicate(root, query, criteriaBuilder) : null;
+                    // A branch without conditions matches every row
+                    if (predicate == null) {
+                        return criteriaBuilder.conjunction();
+                    }
+                    predicates.add(predicate);
+                }
+            }
+            return predicates.isEmpty() ? criteriaBuilder.disjunction() : criteriaBuilder.or(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Negates a specification.
+     *
+     * @param specification the specification to negate
+     * @param <T> the type of the entity
+     * @return the negated specification, or a disjunction if the specification is null
+     */
+    public static <T> Specification<T> not(Specification<T> specification) {
+        return (root, query, criteriaBuilder) -> {
+            Predicate predicate = specification != null ? specification.toPredicate(root, query, criteriaBuilder) : null;
+            return predicate != null ? criteriaBuilder.not(predicate) : criteriaBuilder.disjunction();
+        };
+    }
+
     /**
      * Adds a specification to the list if it's not null.
      *
@@ -0,0 +1,39 @@
+package com.kgkilas.filtering.specification;
+
+/**
+ * Strategy used to render a filter on an attribute of an associated entity.
+ */
+public enum JoinStrategy {
+
+    /**
+     * Navigates the association directly, which renders as an inner join on the related table.
+     */
+    JOIN,
+
+    /**
+     * Renders the filter as a correlated {@code EXISTS} subquery. The root rows are never
+     * duplicated, which makes this the preferred strategy for to-many associations.
+     */
+    EXISTS,
+
+    /**
+     * Renders the filter as {@code id IN (subquery)} on the identifier of the root entity.
+     */
+    IN_SUBQUERY,
+
+    /**
+     * Resolves the matching identifiers of the related entity in a first query and binds them
+     * as an id list in the main query. Requires a {@link TwoPhaseJoinResolver}.
+     * <p>
+     * The id list is capped at the resolver's threshold, {@link TwoPhaseJoinResolver#DEFAULT_THRESHOLD}
+     * by default, so the main query never binds an unbounded number of parameters. A filter matching
+     * more related rows fails with an {@link IllegalStateException}; use {@link #AUTO} where that can happen.
+     */
+    TWO_PHASE,
+
+    /**
+     * Behaves like {@link #TWO_PHASE} while the related side matches few rows, and falls back to
+     * {@link #EXISTS} once it matches more than the configured threshold. Requires a {@link TwoPhaseJoinResolver}.
+     */
+    AUTO
+}
@@ -0,0 +1,177 @@
+package com.kgkilas.filtering.specification;
+
+import com.kgkilas.filtering.filters.RangeFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Builds association filters that need the database before the main query is rendered.
+ * In two-phase mode the identifiers of the matching related entities are resolved first
+ * and then bound as an id list, which keeps the main query free of joins when the filter
+ * on the related side is selective.
+ */
+public class TwoPhaseJoinResolver {
+
+    /**
+     * Default number of related identifiers up to which {@link JoinStrategy#TWO_PHASE} and
+     * {@link JoinStrategy#AUTO} bind an id list.
+     */
+    public static final int DEFAULT_THRESHOLD = 1000;
+
+    private final EntityManager entityManager;
+    private final int threshold;
+
+    /**
+     * Creates a resolver using the {@link #DEFAULT_THRESHOLD}.
+     *
+     * @param entityManager the entity manager used to resolve related identifiers
+     */
+    public TwoPhaseJoinResolver(EntityManager entityManager) {
+        this(entityManager, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates a resolver.
+     *
+     * @param entityManager the entity manager used to resolve related identifiers
+     * @param threshold the maximum number of related identifiers bound as an id list
+     */
+    public TwoPhaseJoinResolver(EntityManager entityManager, int threshold) {
+        this.entityManager = entityManager;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Builds a specification for filtering based on an attribute in a related entity.
+     * {@link JoinStrategy#TWO_PHASE} and {@link JoinStrategy#AUTO} run the first phase immediately;
+     * the other strategies are delegated to {@link CriteriaSpecification}.
+     *
+     * @param entityClass the root entity class
+     * @param column the name of the column representing the relationship
+     * @param rangeFilter the range filter containing the filtering conditions
+     * @param attribute the attribute in the related entity to filter on
+     * @param joinStrategy how the association is rendered
+     * @param <T> the type of the entity
+     * @param <F> the type of the field being filtered
+     * @return a specification that can be used for querying
+     * @throws IllegalStateException if {@link JoinStrategy#TWO_PHASE} matches more related identifiers than the threshold
+     */
+    public <T, F extends Comparable<? super F>> Specification<T> resolve(Class<T> entityClass, String column, RangeFilter<F> rangeFilter, String attribute, JoinStrategy joinStrategy) {
+        if (joinStrategy != JoinStrategy.TWO_PHASE && joinStrategy != JoinStrategy.AUTO) {
+            return CriteriaSpecification.buildJoinSpecification(column, rangeFilter, attribute, joinStrategy);
+        }
+        if (column == null || rangeFilter == null || attribute == null) {
+            return CriteriaSpecification.buildJoinSpecification(column, rangeFilter, attribute);
+        }
+
+        EntityType<T> entityType = entityManager.getMetamodel().entity(entityClass);
+        Attribute<? super T, ?> association = entityType.getAttribute(column);
+        boolean plural = association instanceof PluralAttribute<?, ?, ?>;
+        Class<?> relatedClass = plural
+                ? ((PluralAttribute<?, ?, ?>) association).getElementType().getJavaType()
+                : association.getJavaType();
+        String relatedIdAttribute = CriteriaSpecification.idAttributeName(entityManager.getMetamodel().entity(relatedClass));
+
+        List<Object> relatedIds = findRelatedIds(relatedClass, relatedIdAttribute, rangeFilter, attribute, threshold + 1);
+        if (relatedIds.size() > threshold) {
+            if (joinStrategy == JoinStrategy.TWO_PHASE) {
+                throw new IllegalStateException("Join strategy TWO_PHASE matched more than " + threshold
+                        + " identifiers of " + relatedClass.getSimpleName() + ", use AUTO to fall back to EXISTS");
+            }
+            return CriteriaSpecification.buildExistsJoinSpecification(column, rangeFilter, attribute);
+        }
+        return buildIdListSpecification(column, plural, relatedIdAttribute, relatedIds);
+    }
+
+    /**
+     * Builds the same specification as {@link #resolve}, but runs the first phase only when the
+     * specification is first turned into a predicate. The resolved specification is kept, so a
+     * paged query rendering both a count and a select query resolves the identifiers once.
+     *
+     * @param entityClass the root entity class
+     * @param column the name of the column representing the relationship
+     * @param rangeFilter the range filter containing the filtering conditions
+     * @param attribute the attribute in the related entity to filter on
+     * @param joinStrategy how the association is rendered
+     * @param <T> the type of the entity
+     * @param <F> the type of the field being filtered
+     * @return a specification that resolves the association on first use
+     */
+    public <T, F extends Comparable<? super F>> Specification<T> resolveLazily(Class<T> entityClass, String column, RangeFilter<F> rangeFilter, String attribute, JoinStrategy joinStrategy) {
+        return new Specification<>() {
+            private Specification<T> resolved;
+
+            @Override
+            public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+                if (resolved == null) {
+                    resolved = resolve(entityClass, column, rangeFilter, attribute, joinStrategy);
+                }
+                return resolved.toPredicate(root, query, criteriaBuilder);
+            }
+        };
+    }
+
+    /**
+     * Runs the first phase: selects the identifiers of the related entities matching the filter.
+     *
+     * @param relatedClass the related entity class
+     * @param relatedIdAttribute the identifier attribute of the related entity
+     * @param rangeFilter the range filter containing the filtering conditions
+     * @param attribute the attribute in the related entity to filter on
+     * @param maxResults the maximum number of identifiers to fetch
+     * @param <R> the type of the related entity
+     * @param <F> the type of the field being filtered
+     * @return the identifiers of the matching related entities
+     */
+    private <R, F extends Comparable<? super F>> List<Object> findRelatedIds(Class<R> relatedClass, String relatedIdAttribute, RangeFilter<F> rangeFilter, String attribute, int maxResults) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object> query = criteriaBuilder.createQuery(Object.class);
+        Root<R> root = query.from(relatedClass);
+        Path<F> attributePath = root.get(attribute);
+        Path<Object> idPath = root.get(relatedIdAttribute);
+        query.select(idPath)
+                .distinct(true)
+                .where(CriteriaSpecification.buildRangePredicate(attributePath, rangeFilter, criteriaBuilder));
+
+        TypedQuery<Object> typedQuery = entityManager.createQuery(query);
+        typedQuery.setMaxResults(maxResults);
+        return typedQuery.getResultList();
+    }
+
+    /**
+     * Runs the second phase: binds the resolved identifiers of the related entities as an id list.
+     *
+     * @param column the name of the column representing the relationship
+     * @param plural whether the association is to-many
+     * @param relatedIdAttribute the identifier attribute of the related entity
+     * @param relatedIds the identifiers resolved in the first phase
+     * @param <T> the type of the entity
+     * @return a specification that can be used for querying
+     */
+    private static <T> Specification<T> buildIdListSpecification(String column, boolean plural, String relatedIdAttribute, List<Object> relatedIds) {
+        return (root, query, criteriaBuilder) -> {
+            if (relatedIds.isEmpty()) {
+                return criteriaBuilder.disjunction();
+            }
+            if (!plural) {
+                // Two-valued for a null association, so a negated id list keeps the rows without one, as NOT EXISTS does
+                Path<Object> association = root.get(column);
+                return criteriaBuilder.and(
+                        criteriaBuilder.isNotNull(association),
+                        association.get(relatedIdAttribute).in(relatedIds));
+            }
+            Subquery<Integer> subquery = query.subquery(Integer.class);
+            Join<T, Object> join = subquery.correlate(root).join(column);
+            subquery.select(criteriaBuilder.literal(1))
+                    .where(join.get(relatedIdAttribute).in(relatedIds));
+            return criteriaBuilder.exists(subquery);
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.kgkilas.filtering.filters;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RangeFilterTest {
+
+    @Test
+    void setterReplacesBound() {
+        LongFilter filter = new LongFilter();
+        filter.setGreaterThan(10L);
+        filter.setGreaterThan(5L);
+
+        assertEquals(5L, filter.getGreaterThan().getValue());
+    }
+
+    @Test
+    void betweenIntersectsWithBoundsAlreadySet() {
+        LongFilter filter = new LongFilter();
+        filter.setGreaterThanOrEqual(10L);
+        filter.setLessThan(20L);
+        filter.between(5L, 15L);
+
+        assertEquals(10L, filter.getGreaterThanOrEqual().getValue());
+        assertEquals(15L, filter.getLessThan().getValue());
+    }
+
+    @Test
+    void bucketsAreIntersected() {
+        LocalDateFilter filter = new LocalDateFilter()
+                .setInMonth(YearMonth.of(2024, 3))
+                .setOnDay(LocalDate.of(2024, 3, 31));
+
+        assertEquals(LocalDate.of(2024, 3, 31), filter.getGreaterThanOrEqual().getValue());
+        assertEquals(LocalDate.of(2024, 4, 1), filter.getLessThan().getValue());
+    }
+}
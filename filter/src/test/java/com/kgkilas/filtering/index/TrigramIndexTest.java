@@ -0,0 +1,113 @@
+package com.kgkilas.filtering.index;
+
+import com.kgkilas.filtering.filters.StringFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TrigramIndexTest {
+
+    @Test
+    void searchFindsSubstringsIgnoringCase() {
+        TrigramIndex index = index("Clean Code", "Clean Architecture", "Refactoring");
+
+        assertArrayEquals(new long[]{1, 2}, index.search(List.of("CLEAN"), List.of(), 10));
+        assertArrayEquals(new long[]{3}, index.search(List.of("factor"), List.of(), 10));
+        assertArrayEquals(new long[0], index.search(List.of("domain"), List.of(), 10));
+    }
+
+    @Test
+    void searchRequiresEveryTermAndExcludesTerms() {
+        TrigramIndex index = index("Clean Code", "Clean Architecture", "Code Complete");
+
+        assertArrayEquals(new long[]{1}, index.search(List.of("clean", "code"), List.of(), 10));
+        assertArrayEquals(new long[]{2}, index.search(List.of("clean"), List.of("code"), 10));
+        assertArrayEquals(new long[]{2}, index.search(List.of(), List.of("code"), 10));
+    }
+
+    @Test
+    void termsShorterThanTrigramAreVerifiedAgainstEveryDocument() {
+        TrigramIndex index = index("Go", "Clean Code", "Design Patterns");
+
+        assertArrayEquals(new long[]{1, 3}, index.search(List.of("g"), List.of(), 10));
+        assertArrayEquals(new long[]{2}, index.search(List.of("co"), List.of(), 10));
+    }
+
+    @Test
+    void searchReturnsNullPastLimit() {
+        TrigramIndex index = index("Clean Code", "Clean Architecture", "Clean Agile");
+
+        assertArrayEquals(new long[]{1, 2, 3}, index.search(List.of("clean"), List.of(), 3));
+        assertNull(index.search(List.of("clean"), List.of(), 2));
+    }
+
+    @Test
+    void putReplacesAndRemoveDeletes() {
+        TrigramIndex index = index("Clean Code", "Refactoring");
+
+        index.put(1, "Working Effectively with Legacy Code");
+        index.remove(2);
+        index.put(3, null);
+
+        assertEquals(1, index.size());
+        assertArrayEquals(new long[0], index.search(List.of("clean"), List.of(), 10));
+        assertArrayEquals(new long[0], index.search(List.of("refactor"), List.of(), 10));
+        assertArrayEquals(new long[]{1}, index.search(List.of("legacy"), List.of(), 10));
+    }
+
+    @Test
+    void filterSearchUsesTextConditionsLiterally() {
+        TrigramIndex index = index("100% Pure", "1000 Pure", "Clean Code", "Legacy Code");
+
+        assertArrayEquals(new long[]{1}, index.search(new StringFilter().setContains("100%"), 10));
+        assertArrayEquals(new long[]{3}, index.search(new StringFilter().setMatchesTokens("code clean"), 10));
+        assertArrayEquals(new long[]{3}, index.search(new StringFilter().setContains("code").setDoesNotContain("legacy"), 10));
+    }
+
+    @Test
+    void filterSearchWithoutTextConditionIsNotAnswered() {
+        TrigramIndex index = index("Clean Code");
+        StringFilter equalsOnly = new StringFilter();
+        equalsOnly.setEquals("Clean Code");
+        StringFilter unsatisfiable = new StringFilter()
+                .setContains("clean code")
+                .setDoesNotContain("code");
+
+        assertNull(index.search(equalsOnly, 10));
+        assertArrayEquals(new long[0], index.search(unsatisfiable, 10));
+    }
+
+    @Test
+    void compactionKeepsLiveDocumentsSearchable() {
+        TrigramIndex index = new TrigramIndex();
+        int count = 2000;
+        for (long key = 1; key <= count; key++) {
+            index.put(key, "first edition " + key);
+        }
+        // Updates and removals leave dead documents behind, compacted once they outnumber the live ones
+        for (long key = 1; key <= count; key++) {
+            index.put(key, "second edition " + key);
+        }
+        for (long key = 1; key <= count; key += 2) {
+            index.remove(key);
+        }
+
+        assertEquals(count / 2, index.size());
+        assertArrayEquals(new long[0], index.search(List.of("first"), List.of(), count));
+        assertEquals(count / 2, index.search(List.of("second"), List.of(), count).length);
+        assertArrayEquals(new long[]{1998}, index.search(List.of("edition 1998"), List.of(), count));
+        assertArrayEquals(new long[0], index.search(List.of("edition 1999"), List.of(), count));
+    }
+
+    private static TrigramIndex index(String... texts) {
+        TrigramIndex index = new TrigramIndex();
+        for (int i = 0; i < texts.length; i++) {
+            index.put(i + 1, texts[i]);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,247 @@
+package com.kgkilas.filtering.normalization;
+
+import com.kgkilas.filtering.filters.LongFilter;
+import com.kgkilas.filtering.filters.StringFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilterNormalizerTest {
+
+    @Test
+    void nullFilterIsUnconstrained() {
+        NormalizedFilter<Long> normalized = FilterNormalizer.normalize((LongFilter) null);
+
+        assertTrue(normalized.isUnconstrained());
+        assertFalse(normalized.isUnsatisfiable());
+    }
+
+    @Test
+    void boundsAreIntersected() {
+        LongFilter filter = new LongFilter();
+        filter.setGreaterThan(5L);
+        filter.setGreaterThanOrEqual(3L);
+        filter.setLessThan(10L);
+        filter.setLessThanOrEqual(12L);
+
+        NormalizedFilter<Long> normalized = FilterNormalizer.normalize(filter);
+
+        assertEquals(5L, normalized.getLowerBound());
+        assertFalse(normalized.isLowerInclusive());
+        assertEquals(10L, normalized.getUpperBound());
+        assertFalse(normalized.isUpperInclusive());
+    }
+
+    @Test
+    void exclusiveBoundWinsOverInclusiveBoundOfSameValue() {
+        LongFilter filter = new LongFilter();
+        filter.setGreaterThanOrEqual(5L);
+        filter.setGreaterThan(5L);
+
+        NormalizedFilter<Long> normalized = FilterNormalizer.normalize(filter);
+
+        assertEquals(5L, normalized.getLowerBound());
+        assertFalse(normalized.isLowerInclusive());
+    }
+
+    @Test
+    void emptyRangeIsUnsatisfiable() {
+        LongFilter crossed = new LongFilter();
+        crossed.setGreaterThan(10L);
+        crossed.setLessThan(5L);
+        LongFilter touching = new LongFilter();
+        touching.setGreaterThanOrEqual(5L);
+        touching.setLessThan(5L);
+
+        assertTrue(FilterNormalizer.normalize(crossed).isUnsatisfiable());
+        assertTrue(FilterNormalizer.normalize(touching).isUnsatisfiable());
+    }
+
+    @Test
+    void pointRangeBecomesIn() {
+        LongFilter filter = new LongFilter();
+        filter.setGreaterThanOrEqual(5L);
+        filter.setLessThanOrEqual(5L);
+
+        NormalizedFilter<Long> normalized = FilterNormalizer.normalize(filter);
+
+        assertEquals(List.of(5L), normalized.getIn());
+        assertNull(normalized.getLowerBound());
+        assertNull(normalized.getUpperBound());
+    }
+
+    @Test
+    void equalsIsFoldedIntoIn() {
+        LongFilter contained = new LongFilter();
+        contained.setEquals(3L);
+        contained.setIn(List.of(5L, 3L, 1L));
+        LongFilter missing = new LongFilter();
+        missing.setEquals(3L);
+        missing.setIn(List.of(1L, 5L));
+
+        assertEquals(List.of(3L), FilterNormalizer.normalize(contained).getIn());
+        assertTrue(FilterNormalizer.normalize(missing).isUnsatisfiable());
+    }
+
+    @Test
+    void inIsSortedDeduplicatedAndPrunedByBoundsAndNotIn() {
+        LongFilter filter = new LongFilter();
+        filter.setIn(List.of(4L, 1L, 3L, 2L, 4L, 20L));
+        filter.setGreaterThan(1L);
+        filter.setLessThanOrEqual(10L);
+        filter.setNotIn(List.of(3L));
+
+        NormalizedFilter<Long> normalized = FilterNormalizer.normalize(filter);
+
+        assertEquals(List.of(2L, 4L), normalized.getIn());
+        assertNull(normalized.getNotIn());
+        assertNull(normalized.getLowerBound());
+        assertNull(normalized.getUpperBound());
+    }
+
+    @Test
+    void inWithNoValueLeftIsUnsatisfiable() {
+        LongFilter filter = new LongFilter();
+        filter.setIn(List.of(1L, 2L));
+        filter.setNotIn(List.of(1L));
+        filter.setGreaterThan(2L);
+
+        assertTrue(FilterNormalizer.normalize(filter).isUnsatisfiable());
+    }
+
+    @Test
+    void notInOutsideBoundsIsDropped() {
+        LongFilter partly = new LongFilter();
+        partly.setNotIn(List.of(50L, 1L, 200L));
+        partly.setGreaterThanOrEqual(10L);
+        partly.setLessThanOrEqual(100L);
+        LongFilter entirely = new LongFilter();
+        entirely.setNotIn(List.of(1L));
+        entirely.setGreaterThan(1L);
+
+        assertEquals(List.of(50L), FilterNormalizer.normalize(partly).getNotIn());
+        assertNull(FilterNormalizer.normalize(entirely).getNotIn());
+    }
+
+    @Test
+    void equivalentFiltersNormalizeToEqualInstances() {
+        LongFilter first = new LongFilter();
+        first.setIn(List.of(3L, 1L, 2L));
+        first.setLessThan(3L);
+        LongFilter second = new LongFilter();
+        second.setIn(List.of(2L, 1L));
+
+        assertEquals(FilterNormalizer.normalize(first), FilterNormalizer.normalize(second));
+        assertEquals(FilterNormalizer.normalize(first).hashCode(), FilterNormalizer.normalize(second).hashCode());
+    }
+
+    @Test
+    void fragmentsAreLowerCased() {
+        StringFilter filter = new StringFilter()
+                .setContains("Clean")
+                .setDoesNotContain("DRAFT");
+
+        NormalizedFilter<String> normalized = FilterNormalizer.normalize(filter);
+
+        assertEquals("clean", normalized.getContains());
+        assertEquals("draft", normalized.getDoesNotContain());
+    }
+
+    @Test
+    void doesNotContainImpliedByContainsIsUnsatisfiable() {
+        StringFilter inside = new StringFilter()
+                .setContains("clean code")
+                .setDoesNotContain("Code");
+        StringFilter empty = new StringFilter()
+                .setDoesNotContain("");
+
+        assertTrue(FilterNormalizer.normalize(inside).isUnsatisfiable());
+        assertTrue(FilterNormalizer.normalize(empty).isUnsatisfiable());
+    }
+
+    @Test
+    void inIsPrunedByFragments() {
+        StringFilter filter = new StringFilter()
+                .setContains("code")
+                .setDoesNotContain("legacy");
+        filter.setIn(List.of("Clean Code", "Legacy Code", "Refactoring"));
+
+        assertEquals(List.of("Clean Code"), FilterNormalizer.normalize(filter).getIn());
+    }
+
+    @Test
+    void wildcardCharactersInFragmentsAreLiteral() {
+        // Matches the escaped LIKE patterns rendered in SQL, where % and _ are not wildcards
+        StringFilter underscore = new StringFilter()
+                .setContains("a_c");
+        underscore.setEquals("abc");
+        StringFilter percent = new StringFilter()
+                .setContains("100%");
+        percent.setIn(List.of("100% pure", "1000 pure"));
+
+        assertTrue(FilterNormalizer.normalize(underscore).isUnsatisfiable());
+        assertEquals(List.of("100% pure"), FilterNormalizer.normalize(percent).getIn());
+    }
+
+    @Test
+    void tokensAreLowerCasedDeduplicatedAndSorted() {
+        StringFilter filter = new StringFilter()
+                .setMatchesTokens("  Java clean  JAVA ");
+
+        assertEquals(List.of("clean", "java"), FilterNormalizer.normalize(filter).getTokens());
+    }
+
+    @Test
+    void blankTokensAreUnconstrained() {
+        StringFilter filter = new StringFilter()
+                .setMatchesTokens("   ");
+
+        assertTrue(FilterNormalizer.normalize(filter).isUnconstrained());
+    }
+
+    @Test
+    void tokensImpliedByContainsOrLongerTokensAreDropped() {
+        StringFilter filter = new StringFilter()
+                .setContains("Clean Code")
+                .setMatchesTokens("code architecture arch clean");
+
+        NormalizedFilter<String> normalized = FilterNormalizer.normalize(filter);
+
+        assertEquals("clean code", normalized.getContains());
+        assertEquals(List.of("architecture"), normalized.getTokens());
+    }
+
+    @Test
+    void doesNotContainInsideTokenIsUnsatisfiable() {
+        StringFilter filter = new StringFilter()
+                .setMatchesTokens("refactoring")
+                .setDoesNotContain("factor");
+
+        assertTrue(FilterNormalizer.normalize(filter).isUnsatisfiable());
+    }
+
+    @Test
+    void inIsPrunedByTokens() {
+        StringFilter filter = new StringFilter()
+                .setMatchesTokens("clean code");
+        filter.setIn(List.of("Clean Code", "Code Complete", "Clean Architecture"));
+
+        assertEquals(List.of("Clean Code"), FilterNormalizer.normalize(filter).getIn());
+    }
+
+    @Test
+    void roundTripKeepsConditions() {
+        LongFilter filter = new LongFilter();
+        filter.setGreaterThan(1L);
+        filter.setLessThanOrEqual(10L);
+        filter.setNotIn(List.of(5L));
+        NormalizedFilter<Long> normalized = FilterNormalizer.normalize(filter);
+
+        assertEquals(normalized, FilterNormalizer.normalize(normalized.toRangeFilter()));
+    }
+}
@@ -0,0 +1,84 @@
+package com.kgkilas.filtering.normalization;
+
+import com.kgkilas.filtering.filters.LongFilter;
+import com.kgkilas.filtering.filters.StringFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NormalizedCriteriaTest {
+
+    @Test
+    void canonicalFormSeparatesCriteriaWithCollidingHashCodes() {
+        NormalizedCriteria small = NormalizedCriteria.builder().add("bookId", equalTo(1L)).build();
+        NormalizedCriteria large = NormalizedCriteria.builder().add("bookId", equalTo(4294967296L)).build();
+
+        assertEquals(small.hashCode(), large.hashCode());
+        assertNotEquals(small.canonicalForm(), large.canonicalForm());
+    }
+
+    @Test
+    void canonicalFormSeparatesValuesContainingSeparators() {
+        StringFilter joined = new StringFilter();
+        joined.setIn(List.of("a, b", "c"));
+        StringFilter split = new StringFilter();
+        split.setIn(List.of("a", "b, c"));
+
+        NormalizedCriteria first = NormalizedCriteria.builder().add("title", joined).build();
+        NormalizedCriteria second = NormalizedCriteria.builder().add("title", split).build();
+
+        assertNotEquals(first.canonicalForm(), second.canonicalForm());
+    }
+
+    @Test
+    void canonicalFormDoesNotDependOnBranchOrder() {
+        NormalizedCriteria first = NormalizedCriteria.builder().add("bookId", equalTo(1L)).build();
+        NormalizedCriteria second = NormalizedCriteria.builder().add("authorId", equalTo(2L)).build();
+
+        NormalizedCriteria forward = NormalizedCriteria.builder().anyOf(List.of(first, second)).build();
+        NormalizedCriteria backward = NormalizedCriteria.builder().anyOf(List.of(second, first)).build();
+
+        assertEquals(forward, backward);
+        assertEquals(forward.canonicalForm(), backward.canonicalForm());
+    }
+
+    @Test
+    void canonicalFormSeparatesGroups() {
+        NormalizedCriteria branch = NormalizedCriteria.builder().add("bookId", equalTo(1L)).build();
+        NormalizedCriteria other = NormalizedCriteria.builder().add("bookId", equalTo(2L)).build();
+
+        NormalizedCriteria anyOf = NormalizedCriteria.builder().anyOf(List.of(branch, other)).build();
+        NormalizedCriteria allOf = NormalizedCriteria.builder().allOf(List.of(branch, other)).build();
+        NormalizedCriteria not = NormalizedCriteria.builder().not(branch).build();
+
+        assertNotEquals(anyOf.canonicalForm(), allOf.canonicalForm());
+        assertNotEquals(anyOf.canonicalForm(), not.canonicalForm());
+        assertNotEquals(allOf.canonicalForm(), not.canonicalForm());
+    }
+
+    @Test
+    void unsatisfiableCriteriaShareOneCanonicalForm() {
+        LongFilter crossed = new LongFilter();
+        crossed.setGreaterThan(10L);
+        crossed.setLessThan(5L);
+        StringFilter contradiction = new StringFilter()
+                .setContains("clean")
+                .setDoesNotContain("lea");
+
+        NormalizedCriteria first = NormalizedCriteria.builder().add("bookId", crossed).build();
+        NormalizedCriteria second = NormalizedCriteria.builder().add("title", contradiction).build();
+
+        assertTrue(first.isUnsatisfiable());
+        assertEquals(first.canonicalForm(), second.canonicalForm());
+    }
+
+    private static LongFilter equalTo(long value) {
+        LongFilter filter = new LongFilter();
+        filter.setEquals(value);
+        return filter;
+    }
+}
@@ -0,0 +1,234 @@
+package com.kgkilas.filtering.processor;
+
+import jakarta.persistence.criteria.Predicate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.Nullable;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs javac with the processor over small criteria classes and compiles the generated builders,
+ * so a change to the generated source that no longer compiles fails here rather than in a consumer.
+ */
+class SpecificationBuilderProcessorTest {
+
+    private static final String AUTHOR = """
+            package sample;
+
+            public class Author {
+                private Long id;
+                private String name;
+            }
+            """;
+
+    private static final String AUTHOR_METAMODEL = """
+            package sample;
+
+            import jakarta.persistence.metamodel.SingularAttribute;
+
+            public abstract class Author_ {
+                public static volatile SingularAttribute<Author, Long> id;
+                public static volatile SingularAttribute<Author, String> name;
+            }
+            """;
+
+    private static final String BOOK = """
+            package sample;
+
+            import java.util.Set;
+
+            public class Book {
+                private Long id;
+                private String title;
+                private Author author;
+                private Set<Author> reviewers;
+            }
+            """;
+
+    private static final String BOOK_METAMODEL = """
+            package sample;
+
+            import jakarta.persistence.metamodel.SetAttribute;
+            import jakarta.persistence.metamodel.SingularAttribute;
+
+            public abstract class Book_ {
+                public static volatile SingularAttribute<Book, Long> id;
+                public static volatile SingularAttribute<Book, String> title;
+                public static volatile SingularAttribute<Book, Author> author;
+                public static volatile SetAttribute<Book, Author> reviewers;
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void generatedBuilderCompiles() throws IOException {
+        String criteria = """
+                package sample;
+
+                import com.kgkilas.filtering.filters.LongFilter;
+                import com.kgkilas.filtering.filters.StringFilter;
+                import com.kgkilas.filtering.processor.FilterAttribute;
+                import com.kgkilas.filtering.processor.FilterCriteria;
+                import com.kgkilas.filtering.specification.JoinStrategy;
+
+                @FilterCriteria(entity = Book.class)
+                public class BookCriteria {
+                    @FilterAttribute("id")
+                    private LongFilter bookId;
+                    @FilterAttribute("title")
+                    private StringFilter title;
+                    @FilterAttribute(join = "author", value = "id")
+                    private LongFilter authorId;
+                    @FilterAttribute(join = "author", value = "name", joinStrategy = JoinStrategy.AUTO)
+                    private StringFilter authorName;
+                    @FilterAttribute(join = "reviewers", value = "name", joinStrategy = JoinStrategy.EXISTS)
+                    private StringFilter reviewerName;
+
+                    public LongFilter getBookId() { return bookId; }
+                    public StringFilter getTitle() { return title; }
+                    public LongFilter getAuthorId() { return authorId; }
+                    public StringFilter getAuthorName() { return authorName; }
+                    public StringFilter getReviewerName() { return reviewerName; }
+                }
+                """;
+
+        Compilation compilation = compile(criteria);
+
+        assertTrue(compilation.success(), compilation.errors());
+        String generated = compilation.generatedSource("BookCriteriaSpecificationBuilder");
+        assertTrue(generated.contains("root.get(sample.Book_.author).get(sample.Author_.id)"));
+        assertTrue(generated.contains("joinResolver.resolveLazily(sample.Book.class, \"author\", authorName, \"name\", JoinStrategy.AUTO)"));
+        assertTrue(generated.contains("CriteriaSpecification.buildExistsJoinSpecification(\"reviewers\", reviewerName, \"name\")"));
+        assertFalse(generated.contains("buildGroups"));
+    }
+
+    @Test
+    void generatedBuilderWithGroupsCompiles() throws IOException {
+        String criteria = """
+                package sample;
+
+                import com.kgkilas.filtering.filters.LongFilter;
+                import com.kgkilas.filtering.processor.FilterAttribute;
+                import com.kgkilas.filtering.processor.FilterCriteria;
+                import com.kgkilas.filtering.processor.FilterGroups;
+
+                import java.util.List;
+
+                @FilterCriteria(entity = Book.class)
+                public class BookCriteria implements FilterGroups<BookCriteria> {
+                    @FilterAttribute("id")
+                    private LongFilter bookId;
+                    private List<BookCriteria> anyOf;
+                    private List<BookCriteria> allOf;
+                    private BookCriteria not;
+
+                    public LongFilter getBookId() { return bookId; }
+                    public void setBookId(LongFilter bookId) { this.bookId = bookId; }
+                    public List<BookCriteria> getAnyOf() { return anyOf; }
+                    public List<BookCriteria> getAllOf() { return allOf; }
+                    public BookCriteria getNot() { return not; }
+                }
+                """;
+
+        Compilation compilation = compile(criteria);
+
+        assertTrue(compilation.success(), compilation.errors());
+        String generated = compilation.generatedSource("BookCriteriaSpecificationBuilder");
+        assertTrue(generated.contains("DisjunctionRewriter.mergeInLists"));
+        assertTrue(generated.contains("branch.setBookId(filter);"));
+    }
+
+    @Test
+    void unknownJoinAttributeIsReported() throws IOException {
+        String criteria = """
+                package sample;
+
+                import com.kgkilas.filtering.filters.StringFilter;
+                import com.kgkilas.filtering.processor.FilterAttribute;
+                import com.kgkilas.filtering.processor.FilterCriteria;
+
+                @FilterCriteria(entity = Book.class)
+                public class BookCriteria {
+                    @FilterAttribute(join = "publisher", value = "name")
+                    private StringFilter publisherName;
+
+                    public StringFilter getPublisherName() { return publisherName; }
+                }
+                """;
+
+        Compilation compilation = compile(criteria);
+
+        assertFalse(compilation.success());
+        assertTrue(compilation.errors().contains("has no attribute 'publisher'"), compilation.errors());
+    }
+
+    private Compilation compile(String criteria) throws IOException {
+        Path sources = Files.createDirectories(directory.resolve("src/sample"));
+        Path generated = Files.createDirectories(directory.resolve("generated"));
+        Path classes = Files.createDirectories(directory.resolve("classes"));
+        List<Path> files = new ArrayList<>();
+        for (Map.Entry<String, String> source : Map.of("Author", AUTHOR, "Author_", AUTHOR_METAMODEL,
+                "Book", BOOK, "Book_", BOOK_METAMODEL).entrySet()) {
+            files.add(Files.writeString(sources.resolve(source.getKey() + ".java"), source.getValue()));
+        }
+        files.add(Files.writeString(sources.resolve("BookCriteria.java"), criteria));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            List<String> options = List.of(
+                    "-classpath", classPath(),
+                    "-processor", SpecificationBuilderProcessor.class.getName(),
+                    "-s", generated.toString(),
+                    "-d", classes.toString());
+            boolean success = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromPaths(files)).call();
+            String errors = diagnostics.getDiagnostics().stream()
+                    .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                    .map(diagnostic -> diagnostic.getMessage(null))
+                    .collect(Collectors.joining("\n"));
+            return new Compilation(success, errors, generated.resolve("sample"));
+        }
+    }
+
+    // Surefire may launch the tests from a manifest-only jar, so the jars the generated code needs are added explicitly
+    private static String classPath() {
+        List<String> entries = new ArrayList<>(List.of(System.getProperty("java.class.path")));
+        for (Class<?> type : List.of(SpecificationBuilderProcessor.class, Specification.class, Predicate.class, Nullable.class)) {
+            try {
+                entries.add(Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString());
+            } catch (URISyntaxException e) {
+                throw new IllegalStateException("Could not locate " + type, e);
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private record Compilation(boolean success, String errors, Path generatedDirectory) {
+
+        String generatedSource(String simpleName) throws IOException {
+            return Files.readString(generatedDirectory.resolve(simpleName + ".java"));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.kgkilas.filtering.specification;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Author {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    private String name;
+}
@@ -0,0 +1,10 @@
+package com.kgkilas.filtering.specification;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Boots the JPA slice for the specification tests against an embedded database.
+ */
+@SpringBootApplication
+class JpaTestApplication {
+}
@@ -0,0 +1,92 @@
+package com.kgkilas.filtering.specification;
+
+import com.kgkilas.filtering.filters.StringFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs negated and alternative association filters over a book without an author. The semi-join
+ * strategies must agree on such a book; {@link JoinStrategy#JOIN} is an inner join and drops it.
+ */
+@DataJpaTest
+class NullAssociationJoinStrategyTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private TwoPhaseJoinResolver joinResolver;
+
+    @BeforeEach
+    void setUp() {
+        Author martin = Author.builder().name("Martin").build();
+        entityManager.persist(martin);
+        entityManager.persist(Book.builder().title("Clean Code").author(martin).build());
+        entityManager.persist(Book.builder().title("Anonymous").build());
+        entityManager.flush();
+        joinResolver = new TwoPhaseJoinResolver(entityManager);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = JoinStrategy.class, names = {"EXISTS", "IN_SUBQUERY", "TWO_PHASE", "AUTO"})
+    void notKeepsBookWithoutAuthor(JoinStrategy joinStrategy) {
+        Specification<Book> specification = CriteriaSpecification.not(authorNamed("Martin", joinStrategy));
+
+        assertEquals(List.of("Anonymous"), findTitles(specification));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = JoinStrategy.class, names = {"EXISTS", "IN_SUBQUERY", "TWO_PHASE", "AUTO"})
+    void anyOfWithNegatedBranchKeepsBookWithoutAuthor(JoinStrategy joinStrategy) {
+        Specification<Book> specification = CriteriaSpecification.anyOf(List.of(
+                authorNamed("Martin", joinStrategy),
+                CriteriaSpecification.not(authorNamed("Martin", joinStrategy))));
+
+        assertEquals(List.of("Anonymous", "Clean Code"), findTitles(specification));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = JoinStrategy.class, names = {"EXISTS", "IN_SUBQUERY", "TWO_PHASE", "AUTO"})
+    void notOfUnmatchedNameKeepsEveryBook(JoinStrategy joinStrategy) {
+        Specification<Book> specification = CriteriaSpecification.not(authorNamed("Fowler", joinStrategy));
+
+        assertEquals(List.of("Anonymous", "Clean Code"), findTitles(specification));
+    }
+
+    @Test
+    void autoFallbackToExistsKeepsBookWithoutAuthor() {
+        // A threshold of zero sends every AUTO filter to the EXISTS fallback
+        joinResolver = new TwoPhaseJoinResolver(entityManager, 0);
+        Specification<Book> specification = CriteriaSpecification.not(authorNamed("Martin", JoinStrategy.AUTO));
+
+        assertEquals(List.of("Anonymous"), findTitles(specification));
+    }
+
+    private Specification<Book> authorNamed(String name, JoinStrategy joinStrategy) {
+        StringFilter authorName = new StringFilter();
+        authorName.setEquals(name);
+        return joinResolver.resolve(Book.class, "author", authorName, "name", joinStrategy);
+    }
+
+    private List<String> findTitles(Specification<Book> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<String> query = criteriaBuilder.createQuery(String.class);
+        Root<Book> root = query.from(Book.class);
+        query.select(root.<String>get("title"))
+                .where(specification.toPredicate(root, query, criteriaBuilder))
+                .orderBy(criteriaBuilder.asc(root.get("title")));
+        return entityManager.createQuery(query).getResultList();
+    }
+}
@@ -0,0 +1,79 @@
+package com.kgkilas.filtering.specification;
+
+import com.kgkilas.filtering.filters.StringFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+class TwoPhaseJoinResolverTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        for (String name : List.of("Martin", "Marten", "Fowler")) {
+            Author author = Author.builder().name(name).build();
+            entityManager.persist(author);
+            entityManager.persist(Book.builder().title("By " + name).author(author).build());
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void twoPhaseBindsIdsUpToThreshold() {
+        TwoPhaseJoinResolver joinResolver = new TwoPhaseJoinResolver(entityManager, 2);
+
+        assertEquals(List.of("By Marten", "By Martin"), findTitles(authorNameContains(joinResolver, "mart", JoinStrategy.TWO_PHASE)));
+    }
+
+    @Test
+    void twoPhaseFailsPastThreshold() {
+        TwoPhaseJoinResolver joinResolver = new TwoPhaseJoinResolver(entityManager, 1);
+
+        assertThrows(IllegalStateException.class, () -> authorNameContains(joinResolver, "mart", JoinStrategy.TWO_PHASE));
+    }
+
+    @Test
+    void autoFallsBackToExistsPastThreshold() {
+        TwoPhaseJoinResolver joinResolver = new TwoPhaseJoinResolver(entityManager, 1);
+
+        assertEquals(List.of("By Marten", "By Martin"), findTitles(authorNameContains(joinResolver, "mart", JoinStrategy.AUTO)));
+    }
+
+    @Test
+    void lazyResolutionDefersFirstPhaseUntilApplied() {
+        TwoPhaseJoinResolver joinResolver = new TwoPhaseJoinResolver(entityManager, 1);
+        StringFilter authorName = new StringFilter().setContains("mart");
+
+        Specification<Book> specification = joinResolver.resolveLazily(Book.class, "author", authorName, "name", JoinStrategy.TWO_PHASE);
+
+        assertThrows(IllegalStateException.class, () -> findTitles(specification));
+    }
+
+    private static Specification<Book> authorNameContains(TwoPhaseJoinResolver joinResolver, String fragment, JoinStrategy joinStrategy) {
+        return joinResolver.resolve(Book.class, "author", new StringFilter().setContains(fragment), "name", joinStrategy);
+    }
+
+    private List<String> findTitles(Specification<Book> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<String> query = criteriaBuilder.createQuery(String.class);
+        Root<Book> root = query.from(Book.class);
+        query.select(root.<String>get("title"))
+                .where(specification.toPredicate(root, query, criteriaBuilder))
+                .orderBy(criteriaBuilder.asc(root.get("title")));
+        return entityManager.createQuery(query).getResultList();
+    }
+}
@@ -0,0 +1,88 @@
+#!/bin/sh
+# Measures the startup time and resident memory of the REST application as a plain JVM jar,
+# as a JVM jar running the AOT-processed context, and as a GraalVM native executable.
+#
+# Usage, from the rest directory, with the database of application.yml running:
+#   scripts/startup-benchmark.sh [runs] [-- application arguments]
+#
+# RUNS defaults to 5. Set SKIP_BUILD=1 to reuse the artifacts of a previous run in
+# target/startup-benchmark. Building the native executable requires a GraalVM JDK.
+# Each run starts the application, reads the "Started RestApplication in ... seconds"
+# line, samples its resident set size and stops it; the median, minimum and maximum
+# of each variant are printed as a table.
+
+set -eu
+
+RUNS=5
+if [ $# -gt 0 ] && [ "$1" != "--" ]; then
+    RUNS=$1
+    shift
+fi
+if [ "${1:-}" = "--" ]; then
+    shift
+fi
+TIMEOUT=${TIMEOUT:-120}
+OUT=target/startup-benchmark
+JAR=target/rest-0.0.1-SNAPSHOT.jar
+
+build() {
+    mkdir -p "$OUT"
+    ./mvnw -q -DskipTests package
+    cp "$JAR" "$OUT/rest-jvm.jar"
+    ./mvnw -q -Pnative -DskipTests package
+    cp "$JAR" "$OUT/rest-aot.jar"
+    ./mvnw -q -Pnative -DskipTests native:compile
+    cp target/rest "$OUT/rest-native"
+}
+
+# Prints "<seconds> <rss in MB>" for one start of the given command
+measure() {
+    log="$OUT/run.log"
+    "$@" > "$log" 2>&1 &
+    pid=$!
+    waited=0
+    while ! grep -q "Started RestApplication in" "$log"; do
+        if ! kill -0 "$pid" 2>/dev/null || [ "$waited" -ge $((TIMEOUT * 10)) ]; then
+            kill "$pid" 2>/dev/null || true
+            echo "Application did not start, see $log" >&2
+            exit 1
+        fi
+        sleep 0.1
+        waited=$((waited + 1))
+    done
+    seconds=$(sed -n 's/.*Started RestApplication in \([0-9.]*\) seconds.*/\1/p' "$log" | head -n 1)
+    rss=$(awk '/VmRSS/ { printf "%.0f", $2 / 1024 }' "/proc/$pid/status" 2>/dev/null || echo "-")
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$seconds $rss"
+}
+
+# Prints "<median> <min> <max>" of the numbers read from standard input
+summarize() {
+    sort -n | awk '{ values[NR] = $1 } END {
+        median = NR % 2 ? values[(NR + 1) / 2] : (values[NR / 2] + values[NR / 2 + 1]) / 2
+        print median, values[1], values[NR]
+    }'
+}
+
+benchmark() {
+    name=$1
+    shift
+    results="$OUT/$name.txt"
+    : > "$results"
+    i=0
+    while [ "$i" -lt "$RUNS" ]; do
+        measure "$@" >> "$results"
+        i=$((i + 1))
+    done
+    set -- $(cut -d ' ' -f 1 "$results" | summarize) $(cut -d ' ' -f 2 "$results" | summarize)
+    printf '%-8s %10s %10s %10s %12s\n' "$name" "$1" "$2" "$3" "$4"
+}
+
+[ "${SKIP_BUILD:-0}" = "1" ] || build
+
+echo "Startup over $RUNS runs, in seconds as logged by Spring Boot; RSS after startup in MB"
+printf '%-8s %10s %10s %10s %12s\n' variant median min max "median RSS"
+benchmark jvm java -jar "$OUT/rest-jvm.jar" "$@"
+benchmark aot java -Dspring.aot.enabled=true -jar "$OUT/rest-aot.jar" "$@"
+benchmark native "$OUT/rest-native" "$@"
@@ -1,21 +1,35 @@
 package com.gkilas.filtering.rest.criteria;
 
+import com.gkilas.filtering.rest.domain.Book;
 import com.kgkilas.filtering.filters.*;
+import com.kgkilas.filtering.processor.FilterAttribute;
+import com.kgkilas.filtering.processor.FilterCriteria;
+import com.kgkilas.filtering.processor.FilterGroups;
+import com.kgkilas.filtering.specification.JoinStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.io.Serializable;
+import java.util.List;
 
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
-public class BookCriteria implements Serializable {
+@FilterCriteria(entity = Book.class)
+public class BookCriteria implements Serializable, FilterGroups<BookCriteria> {
 
+    @FilterAttribute("id")
     private LongFilter bookId;
+    @FilterAttribute(join = "author", value = "id")
     private LongFilter authorId;
+    @FilterAttribute(join = "author", value = "name", joinStrategy = JoinStrategy.AUTO)
     private StringFilter authorName;
+    @FilterAttribute("title")
     private StringFilter title;
+    private List<BookCriteria> anyOf;
+    private List<BookCriteria> allOf;
+    private BookCriteria not;
 }
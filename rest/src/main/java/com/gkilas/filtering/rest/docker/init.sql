@@ -25,4 +25,9 @@ INSERT INTO Book (title, author_id) VALUES ('Harry Potter and the Chamber of Sec
 INSERT INTO Book (title, author_id) VALUES ('A Game of Thrones', 2);
 INSERT INTO Book (title, author_id) VALUES ('A Clash of Kings', 2);
 INSERT INTO Book (title, author_id) VALUES ('The Hobbit', 3);
-INSERT INTO Book (title, author_id) VALUES ('The Lord of the Rings', 3);
\ No newline at end of file
+INSERT INTO Book (title, author_id) VALUES ('The Lord of the Rings', 3);
+
+-- Hibernate hands out ids in pooled blocks of 50, which lets it batch inserts.
+-- Changed after the seed rows, so they keep the ids 1, 2, 3 referenced above.
+ALTER SEQUENCE author_id_seq INCREMENT BY 50;
+ALTER SEQUENCE book_id_seq INCREMENT BY 50;
@@ -1,5 +1,6 @@
 package com.gkilas.filtering.rest.domain;
 
+import com.gkilas.filtering.rest.version.TableVersionListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -7,6 +8,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "author")
+@EntityListeners(TableVersionListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,7 +17,8 @@ import java.util.List;
 public class Author {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "author_id_seq")
+    @SequenceGenerator(name = "author_id_seq", sequenceName = "author_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 100)
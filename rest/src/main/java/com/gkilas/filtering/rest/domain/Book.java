@@ -1,10 +1,12 @@
 package com.gkilas.filtering.rest.domain;
 
+import com.gkilas.filtering.rest.version.TableVersionListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
 @Table(name = "book")
+@EntityListeners(TableVersionListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -13,7 +15,8 @@ import lombok.*;
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_id_seq")
+    @SequenceGenerator(name = "book_id_seq", sequenceName = "book_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 100)
@@ -0,0 +1,15 @@
+package com.gkilas.filtering.rest.event;
+
+/**
+ * A listener of per-entity {@link EntityChangeEvent}s. Hibernate keeps every insert, update and
+ * delete of a transaction, with its entity state, until commit only while some consumer wants
+ * the changes of that entity class.
+ */
+public interface EntityChangeConsumer {
+
+    /**
+     * @param entityClass the class of a changed entity
+     * @return true if per-entity events of the class are currently consumed
+     */
+    boolean consumesEntityChanges(Class<?> entityClass);
+}
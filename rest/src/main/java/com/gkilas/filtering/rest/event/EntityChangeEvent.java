@@ -0,0 +1,28 @@
+package com.gkilas.filtering.rest.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A committed change to an entity. Bulk statements change rows without loading them,
+ * so {@link ChangeType#BULK} events carry only the entity class.
+ */
+@Getter
+@AllArgsConstructor
+public class EntityChangeEvent {
+
+    public enum ChangeType {
+        INSERT,
+        UPDATE,
+        DELETE,
+        BULK
+    }
+
+    private final Class<?> entityClass;
+    private final Object entity;
+    private final ChangeType type;
+
+    public static EntityChangeEvent bulk(Class<?> entityClass) {
+        return new EntityChangeEvent(entityClass, null, ChangeType.BULK);
+    }
+}
@@ -0,0 +1,130 @@
+package com.gkilas.filtering.rest.event;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Republishes Hibernate post-commit entity events as {@link EntityChangeEvent}s,
+ * so in-memory views only ever see committed changes. Post-commit handling is only requested for
+ * entity classes an {@link EntityChangeConsumer} currently consumes, because Hibernate has to hold
+ * every change of the transaction in memory until commit to report it.
+ */
+@Component
+public class EntityChangePublisher implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<EntityChangeConsumer> consumers;
+    private final ThreadLocal<Boolean> suppressed = ThreadLocal.withInitial(() -> false);
+
+    public EntityChangePublisher(EntityManagerFactory entityManagerFactory, ApplicationEventPublisher eventPublisher,
+                                 ObjectProvider<EntityChangeConsumer> consumers) {
+        this.eventPublisher = eventPublisher;
+        this.consumers = consumers;
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    // Publish a change made through a bulk statement, which Hibernate does not report per entity
+    public void publishBulkChange(Class<?> entityClass) {
+        eventPublisher.publishEvent(EntityChangeEvent.bulk(entityClass));
+    }
+
+    /**
+     * Runs a large write without per-entity events, so Hibernate does not hold its changes until
+     * commit, and publishes a single bulk change for the entity class once the transaction commits.
+     * Must be called inside the transaction, and every change must be flushed before it returns.
+     *
+     * @param entityClass the entity class changed by the write
+     * @param write the write to run
+     * @param <T> the result type of the write
+     * @return the result of the write
+     */
+    public <T> T runAsBulkChange(Class<?> entityClass, Supplier<T> write) {
+        boolean outer = !suppressed.get();
+        suppressed.set(true);
+        try {
+            return write.get();
+        } finally {
+            if (outer) {
+                suppressed.remove();
+                publishBulkChangeAfterCommit(entityClass);
+            }
+        }
+    }
+
+    private void publishBulkChangeAfterCommit(Class<?> entityClass) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishBulkChange(entityClass);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publishBulkChange(entityClass);
+            }
+        });
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(event.getEntity(), EntityChangeEvent.ChangeType.INSERT);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(event.getEntity(), EntityChangeEvent.ChangeType.UPDATE);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getEntity(), EntityChangeEvent.ChangeType.DELETE);
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Nothing was committed, so there is nothing to publish
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing was committed, so there is nothing to publish
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing was committed, so there is nothing to publish
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        if (suppressed.get()) {
+            return false;
+        }
+        Class<?> entityClass = persister.getMappedClass();
+        return consumers.stream().anyMatch(consumer -> consumer.consumesEntityChanges(entityClass));
+    }
+
+    private void publish(Object entity, EntityChangeEvent.ChangeType type) {
+        eventPublisher.publishEvent(new EntityChangeEvent(entity.getClass(), entity, type));
+    }
+}
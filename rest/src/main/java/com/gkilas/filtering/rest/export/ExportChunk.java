@@ -0,0 +1,55 @@
+package com.gkilas.filtering.rest.export;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A slice {@code [fromId, toId)} of the primary-key space of an export, written to its own file.
+ */
+@Getter
+@Setter
+public class ExportChunk {
+
+    private final int index;
+    private final long fromId;
+    private final long toId;
+    private final String fileName;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicReference<ExportStatus> status = new AtomicReference<>(ExportStatus.PENDING);
+    private volatile Instant finishedAt;
+    private volatile Long lastExportedId;
+    private volatile long exportedRows;
+    private volatile String error;
+
+    public ExportChunk(int index, long fromId, long toId, String fileName) {
+        this.index = index;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.fileName = fileName;
+    }
+
+    public ExportStatus getStatus() {
+        return status.get();
+    }
+
+    public void setStatus(ExportStatus status) {
+        this.status.set(status);
+    }
+
+    /**
+     * Moves the chunk to a new status only if it is still in the expected one, so concurrent
+     * callers cannot both act on the same transition.
+     *
+     * @param expected the status the chunk must be in
+     * @param next the new status
+     * @return true if the status was changed
+     */
+    public boolean compareAndSetStatus(ExportStatus expected, ExportStatus next) {
+        return status.compareAndSet(expected, next);
+    }
+}
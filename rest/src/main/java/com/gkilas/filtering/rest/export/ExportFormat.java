@@ -0,0 +1,15 @@
+package com.gkilas.filtering.rest.export;
+
+import lombok.Getter;
+
+@Getter
+public enum ExportFormat {
+    CSV("csv"),
+    NDJSON("ndjson");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+}
@@ -0,0 +1,83 @@
+package com.gkilas.filtering.rest.export;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.gkilas.filtering.rest.domain.Book;
+import lombok.Getter;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A background export of the books matching a filter, split into primary-key chunks.
+ */
+@Getter
+public class ExportJob {
+
+    private final String id;
+    private final ExportFormat format;
+    private final boolean gzip;
+    private final Instant createdAt = Instant.now();
+    private final List<ExportChunk> chunks;
+    @JsonIgnore
+    private final Path directory;
+    @JsonIgnore
+    private final Specification<Book> specification;
+
+    public ExportJob(String id, ExportFormat format, boolean gzip, Path directory, Specification<Book> specification, List<ExportChunk> chunks) {
+        this.id = id;
+        this.format = format;
+        this.gzip = gzip;
+        this.directory = directory;
+        this.specification = specification;
+        this.chunks = List.copyOf(chunks);
+    }
+
+    /**
+     * Derives the status of the job from the status of its chunks.
+     *
+     * @return the job status
+     */
+    public ExportStatus getStatus() {
+        boolean failed = false;
+        boolean pending = false;
+        for (ExportChunk chunk : chunks) {
+            switch (chunk.getStatus()) {
+                case RUNNING -> {
+                    return ExportStatus.RUNNING;
+                }
+                case FAILED -> failed = true;
+                case PENDING -> pending = true;
+                case COMPLETED -> {
+                    // Nothing left to do for this chunk
+                }
+            }
+        }
+        if (pending) {
+            return ExportStatus.PENDING;
+        }
+        return failed ? ExportStatus.FAILED : ExportStatus.COMPLETED;
+    }
+
+    /**
+     * @return when the last chunk finished, or null while the job is pending or running
+     */
+    public Instant getFinishedAt() {
+        ExportStatus status = getStatus();
+        if (status != ExportStatus.COMPLETED && status != ExportStatus.FAILED) {
+            return null;
+        }
+        Instant finishedAt = createdAt;
+        for (ExportChunk chunk : chunks) {
+            if (chunk.getFinishedAt() != null && chunk.getFinishedAt().isAfter(finishedAt)) {
+                finishedAt = chunk.getFinishedAt();
+            }
+        }
+        return finishedAt;
+    }
+
+    public long getExportedRows() {
+        return chunks.stream().mapToLong(ExportChunk::getExportedRows).sum();
+    }
+}
@@ -0,0 +1,8 @@
+package com.gkilas.filtering.rest.export;
+
+public enum ExportStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
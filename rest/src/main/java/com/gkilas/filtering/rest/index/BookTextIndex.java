@@ -0,0 +1,242 @@
+package com.gkilas.filtering.rest.index;
+
+import com.gkilas.filtering.rest.criteria.BookCriteria;
+import com.gkilas.filtering.rest.domain.Author;
+import com.gkilas.filtering.rest.domain.Book;
+import com.gkilas.filtering.rest.event.EntityChangeConsumer;
+import com.gkilas.filtering.rest.event.EntityChangeEvent;
+import com.kgkilas.filtering.evaluation.FilterMatcher;
+import com.kgkilas.filtering.filters.LongFilter;
+import com.kgkilas.filtering.filters.StringFilter;
+import com.kgkilas.filtering.index.TrigramIndex;
+import com.kgkilas.filtering.normalization.FilterNormalizer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Trigram indexes over book titles and author names. Substring conditions on those columns are
+ * answered from the index and rewritten into id lists, so the database matches them by primary
+ * key instead of scanning every row with {@code LIKE '%term%'}. The indexes are loaded once the
+ * application is ready and kept current from committed entity events; until then, and for
+ * conditions matching more than {@code text-index.max-ids} rows, criteria are left unchanged.
+ * <p>
+ * Bulk changes cannot be applied per entity, so they rebuild the indexes on a background thread.
+ * The new indexes are built off to the side, brought up to date with the entity events committed
+ * meanwhile and swapped in at once. Criteria are left unchanged while a rebuild is pending, and
+ * bulk changes arriving during a rebuild are folded into a single further rebuild. A load that
+ * fails is logged and retried with an exponential backoff.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "text-index.enabled", havingValue = "true")
+public class BookTextIndex implements EntityChangeConsumer {
+
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 1_000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 60_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxIds;
+    private final Object monitor = new Object();
+    private final AtomicBoolean loadScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService loader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "book-text-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Indexes indexes;
+    private List<EntityChangeEvent> missedEvents;
+    private long retryDelayMillis = INITIAL_RETRY_DELAY_MILLIS;  // Loader thread only
+
+    public BookTextIndex(JdbcTemplate jdbcTemplate, @Value("${text-index.max-ids:1000}") int maxIds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxIds = maxIds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleLoad() {
+        if (loadScheduled.compareAndSet(false, true)) {
+            loader.execute(this::load);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        loader.shutdownNow();
+    }
+
+    @Override
+    public boolean consumesEntityChanges(Class<?> entityClass) {
+        return entityClass == Book.class || entityClass == Author.class;
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.getEntityClass() != Book.class && event.getEntityClass() != Author.class) {
+            return;
+        }
+        synchronized (monitor) {
+            if (event.getType() == EntityChangeEvent.ChangeType.BULK) {
+                indexes = null;  // Stale until the rebuild is swapped in
+                scheduleLoad();
+            } else {
+                if (indexes != null) {
+                    indexes.apply(event);
+                }
+                if (missedEvents != null) {
+                    missedEvents.add(event);
+                }
+            }
+        }
+    }
+
+    // Runs on the loader thread
+    private void load() {
+        loadScheduled.set(false);  // A bulk change from now on needs another load
+        synchronized (monitor) {
+            missedEvents = new ArrayList<>();
+        }
+        Indexes loaded = new Indexes(new TrigramIndex(), new TrigramIndex());
+        try {
+            jdbcTemplate.query("select id, name from author",
+                    resultSet -> {
+                        loaded.authorNames().put(resultSet.getLong(1), resultSet.getString(2));
+                    });
+            jdbcTemplate.query("select id, title from book",
+                    resultSet -> {
+                        loaded.titles().put(resultSet.getLong(1), resultSet.getString(2));
+                    });
+        } catch (RuntimeException e) {
+            synchronized (monitor) {
+                missedEvents = null;
+            }
+            scheduleRetry(e);
+            return;
+        }
+        retryDelayMillis = INITIAL_RETRY_DELAY_MILLIS;
+        synchronized (monitor) {
+            // Events committed while loading may or may not be in the result, and replaying them is idempotent
+            missedEvents.forEach(loaded::apply);
+            missedEvents = null;
+            if (!loadScheduled.get()) {
+                indexes = loaded;
+            }
+        }
+    }
+
+    // Runs on the loader thread. A bulk change scheduling a load meanwhile makes the retry unnecessary.
+    private void scheduleRetry(RuntimeException e) {
+        log.warn("Could not load the text indexes, retrying in {} ms", retryDelayMillis, e);
+        if (loadScheduled.compareAndSet(false, true)) {
+            loader.schedule(this::load, retryDelayMillis, TimeUnit.MILLISECONDS);
+        }
+        retryDelayMillis = Math.min(retryDelayMillis * 2, MAX_RETRY_DELAY_MILLIS);
+    }
+
+    /**
+     * Rewrites the text conditions of the title and author name filters into book and author id
+     * lists, recursing into the anyOf, allOf and not groups. The criteria are not modified.
+     *
+     * @param bookCriteria the criteria for filtering books
+     * @return equivalent criteria, with the text conditions answered by the index replaced by ids
+     */
+    public BookCriteria rewrite(BookCriteria bookCriteria) {
+        Indexes current = indexes;
+        if (current == null || bookCriteria == null) {
+            return bookCriteria;
+        }
+        return rewrite(current, bookCriteria);
+    }
+
+    private BookCriteria rewrite(Indexes current, BookCriteria bookCriteria) {
+        if (bookCriteria == null) {
+            return null;
+        }
+        BookCriteria rewritten = new BookCriteria(bookCriteria.getBookId(), bookCriteria.getAuthorId(),
+                bookCriteria.getAuthorName(), bookCriteria.getTitle(),
+                rewrite(current, bookCriteria.getAnyOf()), rewrite(current, bookCriteria.getAllOf()), rewrite(current, bookCriteria.getNot()));
+
+        long[] bookIds = bookCriteria.getTitle() != null ? current.titles().search(bookCriteria.getTitle(), maxIds) : null;
+        if (bookIds != null) {
+            rewritten.setTitle(withoutTextConditions(bookCriteria.getTitle()));
+            rewritten.setBookId(restrict(bookCriteria.getBookId(), bookIds));
+        }
+        long[] authorIds = bookCriteria.getAuthorName() != null ? current.authorNames().search(bookCriteria.getAuthorName(), maxIds) : null;
+        if (authorIds != null) {
+            rewritten.setAuthorName(withoutTextConditions(bookCriteria.getAuthorName()));
+            rewritten.setAuthorId(restrict(bookCriteria.getAuthorId(), authorIds));
+        }
+        return rewritten;
+    }
+
+    private List<BookCriteria> rewrite(Indexes current, List<BookCriteria> branches) {
+        if (branches == null) {
+            return null;
+        }
+        List<BookCriteria> rewritten = new ArrayList<>(branches.size());
+        for (BookCriteria branch : branches) {
+            rewritten.add(rewrite(current, branch));
+        }
+        return rewritten;
+    }
+
+    // Keep the conditions the index does not answer, or nothing if none are left
+    private static StringFilter withoutTextConditions(StringFilter filter) {
+        StringFilter remaining = filter.copy()
+                .setContains(null)
+                .setDoesNotContain(null)
+                .setMatchesTokens(null);
+        return FilterNormalizer.normalize(remaining).isUnconstrained() ? null : remaining;
+    }
+
+    // Intersect the ids found by the index with the existing id filter
+    private static LongFilter restrict(LongFilter filter, long[] ids) {
+        Predicate<Long> matcher = FilterMatcher.compile(filter);
+        List<Long> accepted = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            if (matcher.test(id)) {
+                accepted.add(id);
+            }
+        }
+        LongFilter restricted = new LongFilter();
+        if (accepted.isEmpty()) {
+            // An empty range, which is normalized into a contradiction and matches nothing
+            restricted.between(0L, 0L);
+        } else {
+            restricted.setIn(accepted);
+        }
+        return restricted;
+    }
+
+    private record Indexes(TrigramIndex titles, TrigramIndex authorNames) {
+
+        void apply(EntityChangeEvent event) {
+            if (event.getEntity() instanceof Book book) {
+                if (event.getType() == EntityChangeEvent.ChangeType.DELETE) {
+                    titles.remove(book.getId());
+                } else {
+                    titles.put(book.getId(), book.getTitle());
+                }
+            } else if (event.getEntity() instanceof Author author) {
+                if (event.getType() == EntityChangeEvent.ChangeType.DELETE) {
+                    authorNames.remove(author.getId());
+                } else {
+                    authorNames.put(author.getId(), author.getName());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.gkilas.filtering.rest.replica;
+
+import com.gkilas.filtering.rest.criteria.BookCriteria;
+import com.gkilas.filtering.rest.domain.Author;
+import com.gkilas.filtering.rest.domain.Book;
+import com.gkilas.filtering.rest.event.EntityChangeConsumer;
+import com.gkilas.filtering.rest.event.EntityChangeEvent;
+import com.kgkilas.filtering.evaluation.FilterMatcher;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Columnar in-memory replica of the book table. Ids and author ids are primitive columns, titles
+ * are dictionary-encoded and every author has a bitmap of its rows. The replica is loaded once the
+ * application is ready and kept current from committed entity events; until then, and for criteria
+ * it cannot answer, {@link #find(BookCriteria)} returns empty and the caller falls back to SQL.
+ * <p>
+ * Bulk changes cannot be applied per entity, so they reload the replica on a background thread.
+ * The new columns are built off to the side, brought up to date with the entity events committed
+ * meanwhile and swapped in at once. Queries fall back to SQL while a reload is pending, and bulk
+ * changes arriving during a reload are folded into a single further reload. A load that fails is
+ * logged and retried with an exponential backoff.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "replica.enabled", havingValue = "true")
+public class BookColumnStore implements EntityChangeConsumer {
+
+    private static final long NO_AUTHOR = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 1_000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 60_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean loadScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService loader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "book-column-store");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Columns columns;
+    private List<EntityChangeEvent> missedEvents;
+    private long retryDelayMillis = INITIAL_RETRY_DELAY_MILLIS;  // Loader thread only
+
+    public BookColumnStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleLoad() {
+        if (loadScheduled.compareAndSet(false, true)) {
+            loader.execute(this::load);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        loader.shutdownNow();
+    }
+
+    @Override
+    public boolean consumesEntityChanges(Class<?> entityClass) {
+        return entityClass == Book.class || entityClass == Author.class;
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.getEntityClass() != Book.class && event.getEntityClass() != Author.class) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (event.getType() == EntityChangeEvent.ChangeType.BULK) {
+                columns = null;  // Stale until the reload is swapped in
+                scheduleLoad();
+            } else {
+                if (columns != null) {
+                    columns.apply(event);
+                }
+                if (missedEvents != null) {
+                    missedEvents.add(event);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Evaluates the criteria against the replica, mirroring the filters applied by the book specification.
+     *
+     * @param bookCriteria the criteria for filtering books
+     * @return the matching books, or empty if the replica cannot answer the criteria
+     */
+    public Optional<List<Book>> find(BookCriteria bookCriteria) {
+        lock.readLock().lock();
+        try {
+            Columns current = columns;
+            if (current == null) {
+                return Optional.empty();
+            }
+            BitSet rows = current.match(bookCriteria);
+            List<Book> books = new ArrayList<>(rows.cardinality());
+            Map<Long, Author> authors = new HashMap<>();
+            for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                books.add(current.toBook(row, authors));
+            }
+            return Optional.of(books);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Runs on the loader thread
+    private void load() {
+        loadScheduled.set(false);  // A bulk change from now on needs another load
+        lock.writeLock().lock();
+        try {
+            missedEvents = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Columns loaded = new Columns();
+        try {
+            jdbcTemplate.query("select id, name from author",
+                    resultSet -> {
+                        loaded.authorNames.put(resultSet.getLong(1), resultSet.getString(2));
+                    });
+            jdbcTemplate.query("select id, title, author_id from book",
+                    resultSet -> {
+                        long authorId = resultSet.getLong(3);
+                        loaded.upsertBook(resultSet.getLong(1), resultSet.getString(2), resultSet.wasNull() ? NO_AUTHOR : authorId);
+                    });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                missedEvents = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            scheduleRetry(e);
+            return;
+        }
+        retryDelayMillis = INITIAL_RETRY_DELAY_MILLIS;
+        lock.writeLock().lock();
+        try {
+            // Events committed while loading may or may not be in the result, and replaying them is idempotent
+            missedEvents.forEach(loaded::apply);
+            missedEvents = null;
+            if (!loadScheduled.get()) {
+                columns = loaded;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Runs on the loader thread. A bulk change scheduling a load meanwhile makes the retry unnecessary.
+    private void scheduleRetry(RuntimeException e) {
+        log.warn("Could not load the book replica, retrying in {} ms", retryDelayMillis, e);
+        if (loadScheduled.compareAndSet(false, true)) {
+            loader.schedule(this::load, retryDelayMillis, TimeUnit.MILLISECONDS);
+        }
+        retryDelayMillis = Math.min(retryDelayMillis * 2, MAX_RETRY_DELAY_MILLIS);
+    }
+
+    /**
+     * The columns of one load of the replica. Written by the loader thread until it is swapped in,
+     * then only with the write lock held.
+     */
+    private static final class Columns {
+
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private long[] authorIds = new long[INITIAL_CAPACITY];
+        private int[] titleCodes = new int[INITIAL_CAPACITY];
+        private int rowCount;
+        private final BitSet liveRows = new BitSet();
+        private final Map<Long, Integer> rowsById = new HashMap<>();
+        private final List<String> titleDictionary = new ArrayList<>();
+        private final Map<String, Integer> titleCodesByValue = new HashMap<>();
+        private final Map<Long, String> authorNames = new HashMap<>();
+        private final Map<Long, BitSet> rowsByAuthor = new HashMap<>();
+
+        void apply(EntityChangeEvent event) {
+            if (event.getEntity() instanceof Book book) {
+                if (event.getType() == EntityChangeEvent.ChangeType.DELETE) {
+                    deleteBook(book.getId());
+                } else {
+                    upsertBook(book.getId(), book.getTitle(), book.getAuthor() != null ? book.getAuthor().getId() : NO_AUTHOR);
+                }
+            } else if (event.getEntity() instanceof Author author) {
+                if (event.getType() == EntityChangeEvent.ChangeType.DELETE) {
+                    authorNames.remove(author.getId());
+                } else {
+                    authorNames.put(author.getId(), author.getName());
+                }
+            }
+        }
+
+        /**
+         * Computes the rows matching the criteria, recursing into its anyOf, allOf and not groups.
+         * Must be called with the read lock held.
+         */
+        BitSet match(BookCriteria bookCriteria) {
+            BitSet rows = (BitSet) liveRows.clone();
+            if (bookCriteria == null) {
+                return rows;
+            }
+            if (bookCriteria.getAuthorName() != null) {
+                Predicate<String> authorNameMatcher = FilterMatcher.compile(bookCriteria.getAuthorName());
+                BitSet authorRows = new BitSet();
+                authorNames.forEach((authorId, name) -> {
+                    BitSet authorBooks = rowsByAuthor.get(authorId);
+                    if (authorBooks != null && authorNameMatcher.test(name)) {
+                        authorRows.or(authorBooks);
+                    }
+                });
+                rows.and(authorRows);
+            }
+            if (bookCriteria.getAuthorId() != null) {
+                // Rendered through the author join, so books without an author never match
+                Predicate<Long> authorIdMatcher = FilterMatcher.compile(bookCriteria.getAuthorId());
+                BitSet authorRows = new BitSet();
+                rowsByAuthor.forEach((authorId, authorBooks) -> {
+                    if (authorIdMatcher.test(authorId)) {
+                        authorRows.or(authorBooks);
+                    }
+                });
+                rows.and(authorRows);
+            }
+            BitSet matchingTitleCodes = null;
+            if (bookCriteria.getTitle() != null) {
+                Predicate<String> titleMatcher = FilterMatcher.compile(bookCriteria.getTitle());
+                matchingTitleCodes = new BitSet(titleDictionary.size());
+                for (int code = 0; code < titleDictionary.size(); code++) {
+                    if (titleMatcher.test(titleDictionary.get(code))) {
+                        matchingTitleCodes.set(code);
+                    }
+                }
+            }
+            if (matchingTitleCodes != null || bookCriteria.getBookId() != null) {
+                Predicate<Long> idMatcher = FilterMatcher.compile(bookCriteria.getBookId());
+                for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                    if ((matchingTitleCodes != null && !matchingTitleCodes.get(titleCodes[row])) || !idMatcher.test(ids[row])) {
+                        rows.clear(row);
+                    }
+                }
+            }
+
+            if (bookCriteria.getAnyOf() != null && !bookCriteria.getAnyOf().isEmpty()) {
+                BitSet alternatives = new BitSet();
+                for (BookCriteria branch : bookCriteria.getAnyOf()) {
+                    alternatives.or(match(branch));
+                }
+                rows.and(alternatives);
+            }
+            if (bookCriteria.getAllOf() != null) {
+                for (BookCriteria branch : bookCriteria.getAllOf()) {
+                    rows.and(match(branch));
+                }
+            }
+            if (bookCriteria.getNot() != null) {
+                rows.andNot(match(bookCriteria.getNot()));
+            }
+            return rows;
+        }
+
+        Book toBook(int row, Map<Long, Author> authors) {
+            long authorId = authorIds[row];
+            Author author = authorId == NO_AUTHOR ? null : authors.computeIfAbsent(authorId,
+                    id -> Author.builder().id(id).name(authorNames.get(id)).build());
+            return Book.builder()
+                    .id(ids[row])
+                    .title(titleDictionary.get(titleCodes[row]))
+                    .author(author)
+                    .build();
+        }
+
+        void upsertBook(long id, String title, long authorId) {
+            Integer existingRow = rowsById.get(id);
+            int row;
+            if (existingRow != null) {
+                row = existingRow;
+                unindexAuthor(row);
+            } else {
+                row = rowCount++;
+                ensureCapacity(rowCount);
+                rowsById.put(id, row);
+                liveRows.set(row);
+            }
+            ids[row] = id;
+            authorIds[row] = authorId;
+            titleCodes[row] = encodeTitle(title);
+            if (authorId != NO_AUTHOR) {
+                rowsByAuthor.computeIfAbsent(authorId, key -> new BitSet()).set(row);
+            }
+        }
+
+        private void deleteBook(long id) {
+            Integer row = rowsById.remove(id);
+            if (row != null) {
+                unindexAuthor(row);
+                liveRows.clear(row);
+            }
+        }
+
+        private void unindexAuthor(int row) {
+            BitSet rows = rowsByAuthor.get(authorIds[row]);
+            if (rows != null) {
+                rows.clear(row);
+            }
+        }
+
+        private int encodeTitle(String title) {
+            return titleCodesByValue.computeIfAbsent(title, value -> {
+                titleDictionary.add(value);
+                return titleDictionary.size() - 1;
+            });
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > ids.length) {
+                int newLength = Math.max(capacity, ids.length * 2);
+                ids = Arrays.copyOf(ids, newLength);
+                authorIds = Arrays.copyOf(authorIds, newLength);
+                titleCodes = Arrays.copyOf(titleCodes, newLength);
+            }
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.gkilas.filtering.rest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gkilas.filtering.rest.criteria.BookCriteria;
+import com.gkilas.filtering.rest.domain.Author;
+import com.gkilas.filtering.rest.domain.Book;
+import com.gkilas.filtering.rest.domain.Book_;
+import com.gkilas.filtering.rest.export.ExportChunk;
+import com.gkilas.filtering.rest.export.ExportFormat;
+import com.gkilas.filtering.rest.export.ExportJob;
+import com.gkilas.filtering.rest.export.ExportStatus;
+import com.gkilas.filtering.rest.repository.BookRepository;
+import com.gkilas.filtering.rest.specification.BookSpecification;
+import com.kgkilas.filtering.filters.LongFilter;
+import com.kgkilas.filtering.specification.CriteriaSpecification;
+import com.kgkilas.filtering.specification.TwoPhaseJoinResolver;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the books matching a filter to local files. The primary-key range covered by the
+ * filter is split into chunks which run in parallel on a bounded worker pool, each chunk
+ * reading keyset-paginated batches through its own connection and checkpointing after every batch.
+ */
+@Service
+public class BookExportService {
+
+    private static final String CSV_HEADER = "id,title,author_id,author_name\n";
+    private static final String CHECKPOINT_LAST_ID = "lastExportedId";
+    private static final String CHECKPOINT_LENGTH = "length";
+    private static final String CHECKPOINT_ROWS = "exportedRows";
+    private static final String CHECKPOINT_DONE = "done";
+
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final TwoPhaseJoinResolver joinResolver;
+    private final ObjectMapper objectMapper;
+    private final Path exportDirectory;
+    private final int defaultPartitions;
+    private final int maxPartitions;
+    private final Duration jobRetention;
+    private final int batchSize;
+    private final ExecutorService workers;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookExportService(BookRepository bookRepository,
+                             EntityManager entityManager,
+                             TwoPhaseJoinResolver joinResolver,
+                             ObjectMapper objectMapper,
+                             @Value("${export.directory:${java.io.tmpdir}/book-exports}") String exportDirectory,
+                             @Value("${export.parallelism:4}") int parallelism,
+                             @Value("${export.batch-size:1000}") int batchSize,
+                             @Value("${export.max-partitions:64}") int maxPartitions,
+                             @Value("${export.job-retention-ms:86400000}") long jobRetentionMillis) {
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.joinResolver = joinResolver;
+        this.objectMapper = objectMapper;
+        this.exportDirectory = Paths.get(exportDirectory);
+        this.defaultPartitions = parallelism;
+        this.batchSize = batchSize;
+        this.maxPartitions = maxPartitions;
+        this.jobRetention = Duration.ofMillis(jobRetentionMillis);
+        this.workers = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // The largest number of partitions a single export may request
+    public int getMaxPartitions() {
+        return maxPartitions;
+    }
+
+    // Start exporting the books matching the criteria
+    public ExportJob startExport(BookCriteria bookCriteria, ExportFormat format, boolean gzip, Integer partitions) {
+        if (partitions != null && (partitions < 1 || partitions > maxPartitions)) {
+            throw new IllegalArgumentException("Partitions must be between 1 and " + maxPartitions + ": " + partitions);
+        }
+        evictFinishedJobs();
+        Specification<Book> specification = BookSpecification.buildBookSpecification(bookCriteria, joinResolver);
+        String jobId = UUID.randomUUID().toString();
+        int partitionCount = partitions != null ? partitions : Math.min(defaultPartitions, maxPartitions);
+        String extension = format.getExtension() + (gzip ? ".gz" : "");
+
+        List<ExportChunk> chunks = new ArrayList<>();
+        findIdBounds(specification).ifPresent(bounds -> {
+            long min = bounds[0];
+            long max = bounds[1];
+            long span = max - min + 1;
+            long width = (span + partitionCount - 1) / partitionCount;
+            for (long from = min; from <= max; from += width) {
+                int index = chunks.size();
+                chunks.add(new ExportChunk(index, from, Math.min(from + width, max + 1),
+                        String.format("chunk-%05d.%s", index, extension)));
+            }
+        });
+
+        ExportJob job = new ExportJob(jobId, format, gzip, exportDirectory.resolve(jobId), specification, chunks);
+        try {
+            Files.createDirectories(job.getDirectory());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create export directory " + job.getDirectory(), e);
+        }
+        jobs.put(jobId, job);
+        for (ExportChunk chunk : job.getChunks()) {
+            workers.execute(() -> runChunk(job, chunk));
+        }
+        return job;
+    }
+
+    // Get an export job
+    public Optional<ExportJob> getExport(String jobId) {
+        evictFinishedJobs();
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    // Resume the failed chunks of an export job from their last checkpoint
+    public Optional<ExportJob> resumeExport(String jobId) {
+        evictFinishedJobs();
+        ExportJob job = jobs.get(jobId);
+        if (job != null) {
+            for (ExportChunk chunk : job.getChunks()) {
+                // Only the caller moving the chunk out of FAILED resubmits it, so concurrent resumes never run it twice
+                if (chunk.compareAndSetStatus(ExportStatus.FAILED, ExportStatus.PENDING)) {
+                    chunk.setError(null);
+                    chunk.setFinishedAt(null);
+                    workers.execute(() -> runChunk(job, chunk));
+                }
+            }
+        }
+        return Optional.ofNullable(job);
+    }
+
+    // Forget jobs that finished longer ago than the retention period; their files are left in place
+    private void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(jobRetention);
+        jobs.values().removeIf(job -> {
+            Instant finishedAt = job.getFinishedAt();
+            return finishedAt != null && finishedAt.isBefore(cutoff);
+        });
+    }
+
+    /**
+     * Finds the smallest and largest id matched by the specification.
+     *
+     * @param specification the filter of the export
+     * @return the id bounds, or empty if nothing matches
+     */
+    private Optional<long[]> findIdBounds(Specification<Book> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Book> root = query.from(Book.class);
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        query.multiselect(criteriaBuilder.min(root.get(Book_.id)), criteriaBuilder.max(root.get(Book_.id)));
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        Tuple bounds = entityManager.createQuery(query).getSingleResult();
+        Long min = bounds.get(0, Long.class);
+        Long max = bounds.get(1, Long.class);
+        return min == null || max == null ? Optional.empty() : Optional.of(new long[]{min, max});
+    }
+
+    /**
+     * Exports one chunk, continuing after its last checkpoint if there is one.
+     *
+     * @param job the export job
+     * @param chunk the chunk to export
+     */
+    private void runChunk(ExportJob job, ExportChunk chunk) {
+        chunk.setStatus(ExportStatus.RUNNING);
+        Path file = job.getDirectory().resolve(chunk.getFileName());
+        Path checkpointFile = job.getDirectory().resolve(chunk.getFileName() + ".checkpoint");
+        try {
+            Properties checkpoint = readCheckpoint(checkpointFile);
+            if (Boolean.parseBoolean(checkpoint.getProperty(CHECKPOINT_DONE))) {
+                chunk.setExportedRows(Long.parseLong(checkpoint.getProperty(CHECKPOINT_ROWS, "0")));
+                chunk.setFinishedAt(Instant.now());
+                chunk.setStatus(ExportStatus.COMPLETED);
+                return;
+            }
+
+            long length = Long.parseLong(checkpoint.getProperty(CHECKPOINT_LENGTH, "0"));
+            long exportedRows = Long.parseLong(checkpoint.getProperty(CHECKPOINT_ROWS, "0"));
+            Long lastExportedId = checkpoint.containsKey(CHECKPOINT_LAST_ID)
+                    ? Long.valueOf(checkpoint.getProperty(CHECKPOINT_LAST_ID))
+                    : null;
+            if (!truncateTo(file, length)) {
+                // The file lost data written before the checkpoint, so the chunk starts over
+                length = 0;
+                exportedRows = 0;
+                lastExportedId = null;
+                truncateTo(file, 0);
+            }
+
+            long nextId = lastExportedId != null ? lastExportedId + 1 : chunk.getFromId();
+            while (nextId < chunk.getToId()) {
+                List<Book> books = findBatch(job.getSpecification(), nextId, chunk.getToId());
+                if (books.isEmpty()) {
+                    break;
+                }
+                length = appendBatch(file, books, job, length == 0);
+                lastExportedId = books.get(books.size() - 1).getId();
+                exportedRows += books.size();
+                writeCheckpoint(checkpointFile, lastExportedId, length, exportedRows, false);
+                chunk.setLastExportedId(lastExportedId);
+                chunk.setExportedRows(exportedRows);
+                if (books.size() < batchSize) {
+                    break;
+                }
+                nextId = lastExportedId + 1;
+            }
+            writeCheckpoint(checkpointFile, lastExportedId, length, exportedRows, true);
+            chunk.setFinishedAt(Instant.now());
+            chunk.setStatus(ExportStatus.COMPLETED);
+        } catch (IOException | RuntimeException e) {
+            chunk.setError(e.getMessage());
+            chunk.setFinishedAt(Instant.now());
+            chunk.setStatus(ExportStatus.FAILED);
+        }
+    }
+
+    /**
+     * Reads the next batch of a chunk, ordered by id, starting at the given id.
+     *
+     * @param specification the filter of the export
+     * @param fromId the inclusive lower id bound
+     * @param toId the exclusive upper id bound
+     * @return at most one batch of books
+     */
+    private List<Book> findBatch(Specification<Book> specification, long fromId, long toId) {
+        LongFilter idRange = new LongFilter();
+        idRange.between(fromId, toId);
+        Specification<Book> chunkSpecification = specification.and(new CriteriaSpecification<Book>().buildSpecification(Book_.ID, idRange));
+        return bookRepository.findBy(chunkSpecification, (FluentQuery.FetchableFluentQuery<Book> query) -> query
+                .sortBy(Sort.by(Book_.ID))
+                .project(Book_.AUTHOR)
+                .limit(batchSize)
+                .all());
+    }
+
+    /**
+     * Appends a batch to the chunk file and syncs it to disk. Gzipped batches are written
+     * as separate gzip members, which concatenate into a valid gzip file.
+     *
+     * @param file the chunk file
+     * @param books the batch
+     * @param job the export job
+     * @param header whether the file is empty and needs a header
+     * @return the length of the file after the batch
+     * @throws IOException if the file cannot be written
+     */
+    private long appendBatch(Path file, List<Book> books, ExportJob job, boolean header) throws IOException {
+        OutputStream fileOut = new FileOutputStream(file.toFile(), true);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                job.isGzip() ? new GZIPOutputStream(fileOut) : fileOut, StandardCharsets.UTF_8))) {
+            if (header && job.getFormat() == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+            }
+            for (Book book : books) {
+                writer.write(job.getFormat() == ExportFormat.CSV ? toCsv(book) : objectMapper.writeValueAsString(book));
+                writer.write('\n');
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(false);
+            return channel.size();
+        }
+    }
+
+    /**
+     * Truncates a chunk file to the length recorded by its checkpoint.
+     *
+     * @param file the chunk file
+     * @param length the checkpointed length
+     * @return false if the file is shorter than the checkpointed length
+     * @throws IOException if the file cannot be truncated
+     */
+    private boolean truncateTo(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (channel.size() < length) {
+                return false;
+            }
+            channel.truncate(length);
+            return true;
+        }
+    }
+
+    private Properties readCheckpoint(Path checkpointFile) throws IOException {
+        Properties checkpoint = new Properties();
+        if (Files.exists(checkpointFile)) {
+            try (InputStream in = Files.newInputStream(checkpointFile)) {
+                checkpoint.load(in);
+            }
+        }
+        return checkpoint;
+    }
+
+    private void writeCheckpoint(Path checkpointFile, Long lastExportedId, long length, long exportedRows, boolean done) throws IOException {
+        Properties checkpoint = new Properties();
+        if (lastExportedId != null) {
+            checkpoint.setProperty(CHECKPOINT_LAST_ID, Long.toString(lastExportedId));
+        }
+        checkpoint.setProperty(CHECKPOINT_LENGTH, Long.toString(length));
+        checkpoint.setProperty(CHECKPOINT_ROWS, Long.toString(exportedRows));
+        checkpoint.setProperty(CHECKPOINT_DONE, Boolean.toString(done));
+
+        Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporaryFile)) {
+            checkpoint.store(out, null);
+        }
+        Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String toCsv(Book book) {
+        Author author = book.getAuthor();
+        return book.getId() + "," + escapeCsv(book.getTitle()) + ","
+                + (author != null ? author.getId() : "") + ","
+                + escapeCsv(author != null ? author.getName() : null);
+    }
+
+    private static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
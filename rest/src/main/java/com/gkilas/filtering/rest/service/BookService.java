@@ -1,23 +1,84 @@
 package com.gkilas.filtering.rest.service;
 
 import com.gkilas.filtering.rest.criteria.BookCriteria;
+import com.gkilas.filtering.rest.domain.Author;
+import com.gkilas.filtering.rest.domain.Author_;
 import com.gkilas.filtering.rest.domain.Book;
+import com.gkilas.filtering.rest.domain.Book_;
+import com.gkilas.filtering.rest.event.EntityChangePublisher;
+import com.gkilas.filtering.rest.index.BookTextIndex;
+import com.gkilas.filtering.rest.replica.BookColumnStore;
 import com.gkilas.filtering.rest.repository.BookRepository;
 import com.gkilas.filtering.rest.specification.BookSpecification;
+import com.gkilas.filtering.rest.version.TableVersions;
+import com.kgkilas.filtering.aggregation.CriteriaAggregation;
+import com.kgkilas.filtering.aggregation.Facet;
+import com.kgkilas.filtering.aggregation.FacetResult;
+import com.kgkilas.filtering.specification.CriteriaBulkOperations;
+import com.kgkilas.filtering.specification.TwoPhaseJoinResolver;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class BookService {
 
+    // Length of the title and author name columns
+    private static final int MAX_TEXT_LENGTH = 100;
+
     private final BookRepository bookRepository;
+    private final TwoPhaseJoinResolver joinResolver;
+    private final EntityManager entityManager;
+    private final int batchSize;
+    private final CriteriaBulkOperations<Book> bulkOperations;
+    private final CriteriaAggregation<Book> aggregation;
+    private final TransactionOperations transactionOperations;
+    private final long bulkChunkSize;
+    private final EntityChangePublisher entityChangePublisher;
+    private final Optional<BookColumnStore> bookColumnStore;
+    private final TableVersions tableVersions;
+    private final Optional<BookTextIndex> bookTextIndex;
 
     @Autowired
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository,
+                       TwoPhaseJoinResolver joinResolver,
+                       EntityManager entityManager,
+                       TransactionOperations transactionOperations,
+                       EntityChangePublisher entityChangePublisher,
+                       Optional<BookColumnStore> bookColumnStore,
+                       TableVersions tableVersions,
+                       Optional<BookTextIndex> bookTextIndex,
+                       @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize,
+                       @Value("${bulk.chunk-size:10000}") long bulkChunkSize) {
         this.bookRepository = bookRepository;
+        this.joinResolver = joinResolver;
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+        this.bulkOperations = new CriteriaBulkOperations<>(entityManager, Book.class);
+        this.aggregation = new CriteriaAggregation<>(entityManager, Book.class);
+        this.transactionOperations = transactionOperations;
+        this.bulkChunkSize = bulkChunkSize;
+        this.entityChangePublisher = entityChangePublisher;
+        this.bookColumnStore = bookColumnStore;
+        this.tableVersions = tableVersions;
+        this.bookTextIndex = bookTextIndex;
     }
 
     // Create a new book
@@ -25,10 +86,150 @@ public class BookService {
         return bookRepository.save(book);
     }
 
+    /**
+     * Creates books in bulk. Entities are persisted in JDBC batches and the persistence context
+     * is flushed and cleared after every batch, so memory use does not grow with the input.
+     * Authors referenced by id are attached as references. Authors without an id are matched by
+     * name to an existing author, or to one created earlier in the same call, and created otherwise.
+     * The new rows are published as a single bulk change once the transaction commits.
+     * A row without a title, or with an author that has neither an id nor a name, rolls back
+     * the whole call.
+     *
+     * @param books the books to create
+     * @return the number of books created
+     * @throws InvalidRowException if a row cannot be stored
+     */
+    @Transactional
+    public long createBooks(Stream<Book> books) {
+        return entityChangePublisher.runAsBulkChange(Book.class, () -> persistBooks(books));
+    }
+
+    private long persistBooks(Stream<Book> books) {
+        long count = 0;
+        Map<String, Long> authorIdsByName = new HashMap<>();
+        Iterator<Book> iterator = books.iterator();
+        while (iterator.hasNext()) {
+            Book book = iterator.next();
+            validate(book, count + 1);
+            Author author = book.getAuthor();
+            if (author != null && author.getId() != null) {
+                book.setAuthor(entityManager.getReference(Author.class, author.getId()));
+            } else if (author != null) {
+                Long authorId = authorIdsByName.computeIfAbsent(author.getName(), name -> findAuthorId(name).orElseGet(() -> {
+                    entityManager.persist(author);
+                    return author.getId();
+                }));
+                book.setAuthor(entityManager.getReference(Author.class, authorId));
+            }
+            book.setId(null);
+            entityManager.persist(book);
+            if (++count % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return count;
+    }
+
+    // Reject a row the table constraints would refuse, before it reaches the pending batch
+    private static void validate(Book book, long line) {
+        if (book == null) {
+            throw new InvalidRowException(line, "a book is required");
+        }
+        if (!StringUtils.hasText(book.getTitle()) || book.getTitle().length() > MAX_TEXT_LENGTH) {
+            throw new InvalidRowException(line, "title must be between 1 and " + MAX_TEXT_LENGTH + " characters");
+        }
+        Author author = book.getAuthor();
+        if (author != null && author.getId() == null
+                && (!StringUtils.hasText(author.getName()) || author.getName().length() > MAX_TEXT_LENGTH)) {
+            throw new InvalidRowException(line, "author needs an id or a name of 1 to " + MAX_TEXT_LENGTH + " characters");
+        }
+    }
+
+    // Find the id of an author by name, without flushing the pending batch
+    private Optional<Long> findAuthorId(String name) {
+        return entityManager.createQuery("select a.id from Author a where a.name = :name", Long.class)
+                .setParameter("name", name)
+                .setFlushMode(FlushModeType.COMMIT)
+                .setMaxResults(1)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * Computes the entity tag of the books matching the criteria. It changes whenever the normalized
+     * criteria or the version of a table read by the query changes, so it must be read before querying.
+     * The criteria enter the tag as a SHA-256 digest of their canonical form, so different criteria
+     * cannot share a tag the way they can share a hash code.
+     *
+     * @param bookCriteria the criteria for filtering books
+     * @return a weak entity tag
+     */
+    public String getBooksETag(BookCriteria bookCriteria) {
+        return String.format("W/\"%x-%x-%x-%s\"",
+                tableVersions.getEpoch(),
+                tableVersions.current(Book.class),
+                tableVersions.current(Author.class),
+                digest(BookSpecification.normalize(bookCriteria).canonicalForm()));
+    }
+
+    private static String digest(String canonicalForm) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonicalForm.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported by every JVM", e);
+        }
+    }
 
     // Get all books
     public List<Book> getAllBooks(BookCriteria bookCriteria) {
-        Specification<Book> specification = BookSpecification.buildBookSpecification(bookCriteria);
+        if (BookSpecification.normalize(bookCriteria).isUnsatisfiable()) {
+            return List.of();
+        }
+        Optional<List<Book>> replicated = bookColumnStore.flatMap(store -> store.find(bookCriteria));
+        if (replicated.isPresent()) {
+            return replicated.get();
+        }
+        Specification<Book> specification = BookSpecification.buildBookSpecification(indexed(bookCriteria), joinResolver);
         return bookRepository.findAll(specification);
     }
+
+    // Count the matching books per author and per id bucket, each facet ignoring its own filter
+    public List<FacetResult> getFacets(BookCriteria bookCriteria, int authorLimit, long idInterval) {
+        return aggregation.aggregate(BookSpecification.buildBookDimensions(bookCriteria, joinResolver), List.of(
+                Facet.terms("authorName", Book_.AUTHOR, Author_.NAME, authorLimit),
+                Facet.histogram("bookId", Book_.ID, idInterval)));
+    }
+
+    // Answer the text conditions of the criteria from the text index, when it is enabled
+    private BookCriteria indexed(BookCriteria bookCriteria) {
+        return bookTextIndex.map(index -> index.rewrite(bookCriteria)).orElse(bookCriteria);
+    }
+
+    // Move all books matching the criteria to another author, one id range per transaction; empty if the author does not exist
+    public Optional<Long> updateBookAuthor(BookCriteria bookCriteria, Long authorId) {
+        if (entityManager.find(Author.class, authorId) == null) {
+            return Optional.empty();
+        }
+        Specification<Book> specification = BookSpecification.buildBookSpecification(bookCriteria, joinResolver);
+        try {
+            return Optional.of(bulkOperations.updateInChunks(specification, Map.of(Book_.AUTHOR, entityManager.getReference(Author.class, authorId)),
+                    bulkChunkSize, transactionOperations));
+        } finally {
+            entityChangePublisher.publishBulkChange(Book.class);  // Chunks committed before a failure stay committed
+        }
+    }
+
+    // Delete all books matching the criteria, one id range per transaction
+    public long deleteBooks(BookCriteria bookCriteria) {
+        Specification<Book> specification = BookSpecification.buildBookSpecification(bookCriteria, joinResolver);
+        try {
+            return bulkOperations.deleteInChunks(specification, bulkChunkSize, transactionOperations);
+        } finally {
+            entityChangePublisher.publishBulkChange(Book.class);  // Chunks committed before a failure stay committed
+        }
+    }
 }
@@ -0,0 +1,18 @@
+package com.gkilas.filtering.rest.service;
+
+import lombok.Getter;
+
+/**
+ * A row of a bulk request that cannot be stored. Rows are numbered from one in the order they
+ * were read, which is their line number in an NDJSON body.
+ */
+@Getter
+public class InvalidRowException extends RuntimeException {
+
+    private final long line;
+
+    public InvalidRowException(long line, String reason) {
+        super("Line " + line + ": " + reason);
+        this.line = line;
+    }
+}
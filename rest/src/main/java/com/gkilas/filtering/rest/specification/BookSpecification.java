@@ -1,50 +1,57 @@
 package com.gkilas.filtering.rest.specification;
 
 import com.gkilas.filtering.rest.criteria.BookCriteria;
-import com.gkilas.filtering.rest.domain.Author_;
+import com.gkilas.filtering.rest.criteria.BookCriteriaSpecificationBuilder;
 import com.gkilas.filtering.rest.domain.Book;
-import com.gkilas.filtering.rest.domain.Book_;
+import com.kgkilas.filtering.normalization.NormalizedCriteria;
+import com.kgkilas.filtering.specification.TwoPhaseJoinResolver;
 import org.springframework.data.jpa.domain.Specification;
 import com.kgkilas.filtering.specification.CriteriaSpecification;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Map;
 
 public class BookSpecification extends CriteriaSpecification<Book> {
 
+        /**
+         * Builds the Book specification, rendering association filters as joins.
+         *
+         * @param bookCriteria The criteria for filtering books.
+         * @return A combined Specification for the Book entity.
+         */
         public static Specification<Book> buildBookSpecification(BookCriteria bookCriteria) {
-                return getSpecifications(bookCriteria);
+                return BookCriteriaSpecificationBuilder.build(bookCriteria);
         }
 
         /**
-         * Combines the specifications based on the provided BookCriteria.
+         * Builds the Book specification, rendering association filters through the given resolver.
+         * The field mapping lives on {@link BookCriteria}; the builder is generated at compile time.
          *
          * @param bookCriteria The criteria for filtering books.
+         * @param joinResolver The resolver used for two-phase association filters.
          * @return A combined Specification for the Book entity.
          */
-        protected static Specification<Book> getSpecifications(BookCriteria bookCriteria) {
-                CriteriaSpecification<Book> bookSpecification = new CriteriaSpecification<>();
-                List<Specification<Book>> joinSpecifications = buildSpecifications(bookSpecification, bookCriteria);
-                return combine(joinSpecifications);  // Ensure the combine method uses the new implementation
+        public static Specification<Book> buildBookSpecification(BookCriteria bookCriteria, TwoPhaseJoinResolver joinResolver) {
+                return BookCriteriaSpecificationBuilder.build(bookCriteria, joinResolver);
         }
 
         /**
-         * Builds a list of specifications based on the provided criteria.
+         * Builds one specification per filter of the criteria, keyed by the criteria field name.
          *
-         * @param bookCriteriaSpecification The generic specification builder.
-         * @param bookCriteria      The criteria for filtering books.
-         * @return A list of specifications.
+         * @param bookCriteria The criteria for filtering books.
+         * @param joinResolver The resolver used for two-phase association filters.
+         * @return The specifications of the non-null filters.
          */
-        private static List<Specification<Book>> buildSpecifications(CriteriaSpecification<Book> bookCriteriaSpecification, BookCriteria bookCriteria) {
-                List<Specification<Book>> specifications = new ArrayList<>();
-
-                // Build specifications for individual fields
-                addIfNotNull(specifications, bookCriteriaSpecification.buildSpecification(Book_.ID, bookCriteria.getBookId()));
-                addIfNotNull(specifications, bookCriteriaSpecification.buildSpecification(Book_.TITLE, bookCriteria.getTitle()));
-
-                // Use buildJoinSpecification for related entity fields
-                addIfNotNull(specifications, buildJoinSpecification(Book_.AUTHOR, bookCriteria.getAuthorName(), Author_.NAME));
+        public static Map<String, Specification<Book>> buildBookDimensions(BookCriteria bookCriteria, TwoPhaseJoinResolver joinResolver) {
+                return BookCriteriaSpecificationBuilder.buildDimensions(bookCriteria, joinResolver);
+        }
 
-                return specifications;
+        /**
+         * Normalizes the filters of the criteria, keyed by the criteria field name.
+         *
+         * @param bookCriteria The criteria for filtering books.
+         * @return The canonical form of the criteria.
+         */
+        public static NormalizedCriteria normalize(BookCriteria bookCriteria) {
+                return BookCriteriaSpecificationBuilder.normalize(bookCriteria);
         }
-}
\ No newline at end of file
+}
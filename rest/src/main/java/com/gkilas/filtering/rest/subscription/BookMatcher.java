@@ -0,0 +1,139 @@
+package com.gkilas.filtering.rest.subscription;
+
+import com.gkilas.filtering.rest.criteria.BookCriteria;
+import com.gkilas.filtering.rest.domain.Author;
+import com.gkilas.filtering.rest.domain.Book;
+import com.kgkilas.filtering.evaluation.FilterMatcher;
+import com.kgkilas.filtering.filters.RangeFilter;
+import com.kgkilas.filtering.normalization.FilterNormalizer;
+import com.kgkilas.filtering.normalization.NormalizedFilter;
+import org.hibernate.Hibernate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Compiles book criteria into an in-memory predicate over books, mirroring the filters applied by
+ * the book specification, including the anyOf, allOf and not groups. A filter on a field whose value
+ * is null, such as the author name of a book without an author, does not match, as in SQL.
+ */
+final class BookMatcher {
+
+    private BookMatcher() {
+    }
+
+    /**
+     * Compiles the criteria into a predicate. The book passed to the predicate must have its author loaded.
+     *
+     * @param bookCriteria the criteria for filtering books, or null to match every book
+     * @return a predicate matching the books selected by the criteria
+     */
+    static Predicate<Book> compile(BookCriteria bookCriteria) {
+        if (bookCriteria == null) {
+            return book -> true;
+        }
+        List<Predicate<Book>> conditions = new ArrayList<>();
+        addField(conditions, bookCriteria.getBookId(), Book::getId);
+        addField(conditions, bookCriteria.getAuthorId(), book -> book.getAuthor() != null ? book.getAuthor().getId() : null);
+        addField(conditions, bookCriteria.getAuthorName(), book -> book.getAuthor() != null ? book.getAuthor().getName() : null);
+        addField(conditions, bookCriteria.getTitle(), Book::getTitle);
+
+        if (bookCriteria.getAnyOf() != null && !bookCriteria.getAnyOf().isEmpty()) {
+            List<Predicate<Book>> alternatives = compileAll(bookCriteria.getAnyOf());
+            conditions.add(book -> alternatives.stream().anyMatch(alternative -> alternative.test(book)));
+        }
+        if (bookCriteria.getAllOf() != null) {
+            conditions.addAll(compileAll(bookCriteria.getAllOf()));
+        }
+        if (bookCriteria.getNot() != null) {
+            conditions.add(compile(bookCriteria.getNot()).negate());
+        }
+        return book -> {
+            for (Predicate<Book> condition : conditions) {
+                if (!condition.test(book)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     * Checks whether the criteria filter on the author name anywhere, including its groups.
+     *
+     * @param bookCriteria the criteria for filtering books, or null
+     * @return true if a change of an author name can change which books the criteria select
+     */
+    static boolean usesAuthorName(BookCriteria bookCriteria) {
+        if (bookCriteria == null) {
+            return false;
+        }
+        return bookCriteria.getAuthorName() != null
+                || (bookCriteria.getAnyOf() != null && bookCriteria.getAnyOf().stream().anyMatch(BookMatcher::usesAuthorName))
+                || (bookCriteria.getAllOf() != null && bookCriteria.getAllOf().stream().anyMatch(BookMatcher::usesAuthorName))
+                || usesAuthorName(bookCriteria.getNot());
+    }
+
+    /**
+     * Copies a book with its author, so it can be matched and serialized after its session has closed.
+     * Only state already loaded is read, so this never queries; the author name is left null when the
+     * author is not loaded and is filled in later by {@link #resolveAuthorName(Book, Function)}.
+     *
+     * @param book the book to copy
+     * @return a detached copy of the book
+     */
+    static Book detach(Book book) {
+        Author author = book.getAuthor();
+        Author detachedAuthor = null;
+        if (author != null) {
+            // An author attached by reference is an uninitialized proxy, or a detached instance carrying only its id
+            String name = Hibernate.isInitialized(author) ? author.getName() : null;
+            detachedAuthor = Author.builder().id(author.getId()).name(name).build();
+        }
+        return Book.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(detachedAuthor)
+                .build();
+    }
+
+    /**
+     * Fills in the author name of a detached book that does not carry it.
+     *
+     * @param book a book returned by {@link #detach(Book)}
+     * @param authorNames resolves the name of an author by id
+     * @return the same book
+     */
+    static Book resolveAuthorName(Book book, Function<Long, String> authorNames) {
+        Author author = book.getAuthor();
+        if (author != null && author.getName() == null) {
+            author.setName(authorNames.apply(author.getId()));
+        }
+        return book;
+    }
+
+    private static List<Predicate<Book>> compileAll(List<BookCriteria> branches) {
+        List<Predicate<Book>> predicates = new ArrayList<>(branches.size());
+        for (BookCriteria branch : branches) {
+            predicates.add(compile(branch));
+        }
+        return predicates;
+    }
+
+    private static <F extends Comparable<? super F>> void addField(List<Predicate<Book>> conditions, RangeFilter<F> filter, Function<Book, F> field) {
+        if (filter == null) {
+            return;
+        }
+        NormalizedFilter<F> normalized = FilterNormalizer.normalize(filter);
+        if (normalized.isUnconstrained()) {
+            return;
+        }
+        Predicate<F> matcher = FilterMatcher.compile(normalized);
+        conditions.add(book -> {
+            F value = field.apply(book);
+            return value != null && matcher.test(value);
+        });
+    }
+}
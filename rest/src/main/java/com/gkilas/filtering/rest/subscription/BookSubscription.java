@@ -0,0 +1,162 @@
+package com.gkilas.filtering.rest.subscription;
+
+import com.gkilas.filtering.rest.domain.Book;
+import lombok.Getter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A registered criteria and the event stream of its client. Matches found before the initial result
+ * has been sent are held back, so the client always receives the initial result first. The monitor
+ * only guards the held-back events and the ids of the books the client holds; no event is sent
+ * while it is held.
+ * <p>
+ * The client holds the books of the initial result and of every {@code book} event since. A
+ * {@code removed} event carrying the id is sent when a held book stops matching or is deleted.
+ * An {@code invalidated} event ends the stream, since the books the client holds are no longer
+ * known; subscribing again starts over from a new initial result.
+ */
+class BookSubscription {
+
+    static final String INITIAL_EVENT = "initial";
+    static final String BOOK_EVENT = "book";
+    static final String REMOVED_EVENT = "removed";
+    static final String INVALIDATED_EVENT = "invalidated";
+
+    @Getter
+    private final long id;
+    @Getter
+    private final SseEmitter emitter;
+    private final Predicate<Book> matcher;
+    @Getter
+    private final boolean authorNameDependent;
+    private final MatchedBookIndex matchedBooks;
+    private final Set<Long> heldBookIds = new HashSet<>();
+    private final List<PendingEvent> pending = new ArrayList<>();
+    private boolean started;
+    private boolean closed;
+
+    BookSubscription(long id, SseEmitter emitter, Predicate<Book> matcher, boolean authorNameDependent, MatchedBookIndex matchedBooks) {
+        this.id = id;
+        this.emitter = emitter;
+        this.matcher = matcher;
+        this.authorNameDependent = authorNameDependent;
+        this.matchedBooks = matchedBooks;
+    }
+
+    boolean matches(Book book) {
+        return matcher.test(book);
+    }
+
+    // Send the initial result, then everything that matched while it was being queried or sent.
+    // Until started, deliveries are only queued, so the sends here never interleave with theirs.
+    void start(List<Book> books) throws IOException {
+        synchronized (this) {
+            books.forEach(book -> hold(book.getId()));
+        }
+        send(INITIAL_EVENT, books);
+        while (true) {
+            List<PendingEvent> events = new ArrayList<>();
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    started = true;
+                    return;
+                }
+                for (PendingEvent event : pending) {
+                    // Removals were queued for every change seen while starting, so only held books are sent
+                    if (event.name().equals(BOOK_EVENT)) {
+                        hold(((Book) event.data()).getId());
+                        events.add(event);
+                    } else if (!event.name().equals(REMOVED_EVENT) || release((Long) event.data())) {
+                        events.add(event);
+                    }
+                }
+                pending.clear();
+            }
+            for (PendingEvent event : events) {
+                send(event.name(), event.data());
+                if (event.name().equals(INVALIDATED_EVENT)) {
+                    synchronized (this) {
+                        started = true;
+                        pending.clear();
+                    }
+                    emitter.complete();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Called from the single sender thread only
+    void deliverMatch(Book book) throws IOException {
+        synchronized (this) {
+            if (!started) {
+                pending.add(new PendingEvent(BOOK_EVENT, book));
+                return;
+            }
+            hold(book.getId());
+        }
+        send(BOOK_EVENT, book);
+    }
+
+    // Called from the single sender thread only, for a book that no longer matches or was deleted
+    void deliverRemoval(Long bookId) throws IOException {
+        synchronized (this) {
+            if (!started) {
+                pending.add(new PendingEvent(REMOVED_EVENT, bookId));
+                return;
+            }
+            if (!release(bookId)) {
+                return;  // The client never held the book
+            }
+        }
+        send(REMOVED_EVENT, bookId);
+    }
+
+    // Called from the single sender thread only
+    void deliverInvalidation(String entityName) throws IOException {
+        synchronized (this) {
+            if (!started) {
+                pending.add(new PendingEvent(INVALIDATED_EVENT, entityName));
+                return;
+            }
+        }
+        send(INVALIDATED_EVENT, entityName);
+        emitter.complete();
+    }
+
+    synchronized void close() {
+        closed = true;
+        heldBookIds.forEach(bookId -> matchedBooks.remove(bookId, this));
+        heldBookIds.clear();
+    }
+
+    // Must be called with the monitor held
+    private void hold(Long bookId) {
+        if (!closed && heldBookIds.add(bookId)) {
+            matchedBooks.add(bookId, this);
+        }
+    }
+
+    // Must be called with the monitor held
+    private boolean release(Long bookId) {
+        if (!heldBookIds.remove(bookId)) {
+            return false;
+        }
+        matchedBooks.remove(bookId, this);
+        return true;
+    }
+
+    private void send(String name, Object data) throws IOException {
+        emitter.send(SseEmitter.event().name(name).data(data));
+    }
+
+    private record PendingEvent(String name, Object data) {
+    }
+}
@@ -0,0 +1,363 @@
+package com.gkilas.filtering.rest.subscription;
+
+import com.gkilas.filtering.rest.criteria.BookCriteria;
+import com.gkilas.filtering.rest.domain.Author;
+import com.gkilas.filtering.rest.domain.Book;
+import com.gkilas.filtering.rest.event.EntityChangeConsumer;
+import com.gkilas.filtering.rest.event.EntityChangeEvent;
+import com.gkilas.filtering.rest.service.BookService;
+import com.gkilas.filtering.rest.specification.BookSpecification;
+import com.kgkilas.filtering.normalization.NormalizedCriteria;
+import com.kgkilas.filtering.normalization.NormalizedFilter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Live book subscriptions. A client registers criteria once, receives the matching books as an
+ * {@code initial} event, then a {@code book} event for every committed insert or update of a book
+ * that matches, and a {@code removed} event with the id when a book it was sent stops matching or
+ * is deleted. Books are matched in memory against committed entity events with predicates
+ * compiled once per subscription.
+ * <p>
+ * Subscriptions are indexed by their top-level {@code bookId}, {@code authorId} or
+ * {@code authorName} value lists, or else by the bounds of their {@code bookId} range, so a write
+ * is only matched against the subscriptions it could satisfy. Subscriptions without such a filter
+ * are matched against every write. Changes that cannot be matched per book send an
+ * {@code invalidated} event and end the stream, after which the client should subscribe again:
+ * bulk statements to every subscription, author updates only to subscriptions filtering on the
+ * author name. The state of a changed book is copied on the committing thread; only its author
+ * name may be resolved later. Events are sent from a single thread, so a slow client never delays
+ * a commit. Its queue is bounded by {@code subscriptions.queue-capacity}; when it overflows, the
+ * dropped events are replaced by an {@code invalidated} event to every subscription.
+ */
+@Component
+public class BookSubscriptions implements EntityChangeConsumer {
+
+    private final BookService bookService;
+    private final JdbcTemplate jdbcTemplate;
+    private final long timeoutMillis;
+    private final AtomicLong subscriptionIds = new AtomicLong();
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    private final ExecutorService sender;
+    private final Map<Long, String> authorNames = new ConcurrentHashMap<>();
+    private final MatchedBookIndex matchedBooks = new MatchedBookIndex();
+    private final Set<BookSubscription> starting = ConcurrentHashMap.newKeySet();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Set<BookSubscription>> byBookId = new HashMap<>();
+    private final Map<Long, Set<BookSubscription>> byAuthorId = new HashMap<>();
+    private final Map<String, Set<BookSubscription>> byAuthorName = new HashMap<>();
+    private final NavigableMap<Long, Set<BookSubscription>> byBookIdUpperBound = new TreeMap<>();
+    private final NavigableMap<Long, Set<BookSubscription>> byBookIdLowerBound = new TreeMap<>();
+    private final Set<BookSubscription> unindexed = new LinkedHashSet<>();
+    private final Map<Long, Runnable> removals = new HashMap<>();
+
+    public BookSubscriptions(BookService bookService, JdbcTemplate jdbcTemplate,
+                             @Value("${subscriptions.timeout-ms:1800000}") long timeoutMillis,
+                             @Value("${subscriptions.queue-capacity:10000}") int queueCapacity) {
+        this.bookService = bookService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.timeoutMillis = timeoutMillis;
+        this.sender = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "book-subscriptions");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, executor) -> overflowed.set(true));  // The queue is full, so a queued task reports the loss
+    }
+
+    /**
+     * Registers the criteria and starts its event stream with the books currently matching.
+     * The subscription is registered before the initial query runs, so no committed change is
+     * missed; a book changed meanwhile may appear in both the initial result and a later event.
+     *
+     * @param bookCriteria the criteria for filtering books
+     * @return the event stream of the subscription
+     */
+    public SseEmitter subscribe(BookCriteria bookCriteria) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        BookSubscription subscription = new BookSubscription(subscriptionIds.incrementAndGet(), emitter,
+                BookMatcher.compile(bookCriteria), BookMatcher.usesAuthorName(bookCriteria), matchedBooks);
+        NormalizedCriteria normalized = BookSpecification.normalize(bookCriteria);
+        if (!normalized.isUnsatisfiable()) {
+            starting.add(subscription);  // Receives every removal until it knows which books it holds
+            register(subscription, normalized);
+            emitter.onCompletion(() -> unregister(subscription));
+            emitter.onTimeout(emitter::complete);
+            emitter.onError(error -> unregister(subscription));
+        }
+        try {
+            subscription.start(bookService.getAllBooks(bookCriteria));
+        } catch (IOException | RuntimeException e) {
+            unregister(subscription);
+            emitter.completeWithError(e);
+            return emitter;
+        } finally {
+            starting.remove(subscription);
+        }
+        if (normalized.isUnsatisfiable()) {
+            emitter.complete();  // Nothing can ever match
+        }
+        return emitter;
+    }
+
+    /**
+     * @return the number of registered subscriptions
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return removals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean consumesEntityChanges(Class<?> entityClass) {
+        return (entityClass == Book.class || entityClass == Author.class) && size() > 0;
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.getEntityClass() == Author.class) {
+            updateAuthorName(event);
+        }
+        if (size() == 0) {
+            return;
+        }
+        if (event.getType() == EntityChangeEvent.ChangeType.BULK) {
+            if (event.getEntityClass() == Book.class || event.getEntityClass() == Author.class) {
+                invalidateAll(event.getEntityClass());
+            }
+        } else if (event.getEntity() instanceof Book book) {
+            // Copied here, while the entity still holds the committed state
+            Book detached = BookMatcher.detach(book);
+            boolean deleted = event.getType() == EntityChangeEvent.ChangeType.DELETE;
+            submit(() -> publish(detached, deleted));  // Resolving the author name may query, which must not hold up the commit
+        } else if (event.getEntity() instanceof Author && event.getType() != EntityChangeEvent.ChangeType.INSERT) {
+            invalidateAuthorNameDependent();  // The books of the author are not loaded, so they cannot be matched
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        sender.shutdownNow();
+        subscriptions().forEach(subscription -> subscription.getEmitter().complete());
+    }
+
+    /**
+     * Adds the subscription to the index of its most selective top-level filter.
+     */
+    private void register(BookSubscription subscription, NormalizedCriteria normalized) {
+        NormalizedFilter<?> bookId = normalized.getFilters().get("bookId");
+        NormalizedFilter<?> authorId = normalized.getFilters().get("authorId");
+        NormalizedFilter<?> authorName = normalized.getFilters().get("authorName");
+        lock.writeLock().lock();
+        try {
+            if (removals.isEmpty()) {
+                authorNames.clear();  // Author changes are not published while nobody subscribes
+            }
+            Runnable removal;
+            if (bookId != null && bookId.getIn() != null) {
+                removal = index(byBookId, longValues(bookId.getIn()), subscription);
+            } else if (authorId != null && authorId.getIn() != null) {
+                removal = index(byAuthorId, longValues(authorId.getIn()), subscription);
+            } else if (authorName != null && authorName.getIn() != null) {
+                removal = index(byAuthorName, authorName.getIn().stream().map(String.class::cast).toList(), subscription);
+            } else if (bookId != null && bookId.getUpperBound() != null) {
+                removal = index(byBookIdUpperBound, List.of((Long) bookId.getUpperBound()), subscription);
+            } else if (bookId != null && bookId.getLowerBound() != null) {
+                removal = index(byBookIdLowerBound, List.of((Long) bookId.getLowerBound()), subscription);
+            } else {
+                unindexed.add(subscription);
+                removal = () -> unindexed.remove(subscription);
+            }
+            removals.put(subscription.getId(), removal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unregister(BookSubscription subscription) {
+        lock.writeLock().lock();
+        try {
+            Runnable removal = removals.remove(subscription.getId());
+            if (removal != null) {
+                removal.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        starting.remove(subscription);
+        subscription.close();
+    }
+
+    /**
+     * Collects the subscriptions the book could match. Bounds are compared inclusively, and
+     * every candidate is still matched against its full criteria.
+     */
+    private List<BookSubscription> candidates(Book book) {
+        List<BookSubscription> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (book.getId() != null) {
+                candidates.addAll(byBookId.getOrDefault(book.getId(), Set.of()));
+                byBookIdUpperBound.tailMap(book.getId(), true).values().forEach(candidates::addAll);
+                byBookIdLowerBound.headMap(book.getId(), true).values().forEach(candidates::addAll);
+            }
+            if (book.getAuthor() != null) {
+                candidates.addAll(byAuthorId.getOrDefault(book.getAuthor().getId(), Set.of()));
+                candidates.addAll(byAuthorName.getOrDefault(book.getAuthor().getName(), Set.of()));
+            }
+            candidates.addAll(unindexed);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return candidates;
+    }
+
+    // Runs on the sender thread. Subscriptions holding the book that it no longer matches are sent its removal.
+    private void publish(Book book, boolean deleted) {
+        Set<BookSubscription> noLongerMatching = new LinkedHashSet<>(matchedBooks.holders(book.getId()));
+        noLongerMatching.addAll(starting);
+        if (!deleted) {
+            BookMatcher.resolveAuthorName(book, this::findAuthorName);
+            for (BookSubscription subscription : candidates(book)) {
+                if (subscription.matches(book)) {
+                    noLongerMatching.remove(subscription);
+                    deliver(subscription, () -> subscription.deliverMatch(book));
+                }
+            }
+        }
+        for (BookSubscription subscription : noLongerMatching) {
+            deliver(subscription, () -> subscription.deliverRemoval(book.getId()));
+        }
+    }
+
+    private void invalidateAll(Class<?> entityClass) {
+        submit(() -> subscriptions().forEach(subscription -> invalidate(subscription, entityClass)));
+    }
+
+    private void invalidateAuthorNameDependent() {
+        submit(() -> subscriptions().stream()
+                .filter(BookSubscription::isAuthorNameDependent)
+                .forEach(subscription -> invalidate(subscription, Author.class)));
+    }
+
+    private void submit(Runnable task) {
+        sender.execute(() -> {
+            if (overflowed.getAndSet(false)) {
+                // Events were dropped, so the books they carried cannot be matched any more
+                subscriptions().forEach(subscription -> invalidate(subscription, Book.class));
+            }
+            task.run();
+        });
+    }
+
+    private List<BookSubscription> subscriptions() {
+        lock.readLock().lock();
+        try {
+            return allSubscriptions();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Must be called from the sender thread
+    private void invalidate(BookSubscription subscription, Class<?> entityClass) {
+        unregister(subscription);  // The stream ends with the event
+        deliver(subscription, () -> subscription.deliverInvalidation(entityClass.getSimpleName()));
+    }
+
+    // Must be called from the sender thread
+    private void deliver(BookSubscription subscription, Delivery delivery) {
+        try {
+            delivery.run();
+        } catch (IOException | RuntimeException e) {
+            unregister(subscription);  // The client has gone away
+            subscription.getEmitter().completeWithError(e);
+        }
+    }
+
+    // Must be called with a lock held
+    private List<BookSubscription> allSubscriptions() {
+        Set<BookSubscription> subscriptions = new LinkedHashSet<>(unindexed);
+        for (Map<?, Set<BookSubscription>> index : List.of(byBookId, byAuthorId, byAuthorName, byBookIdUpperBound, byBookIdLowerBound)) {
+            index.values().forEach(subscriptions::addAll);
+        }
+        return new ArrayList<>(subscriptions);
+    }
+
+    private void updateAuthorName(EntityChangeEvent event) {
+        if (!(event.getEntity() instanceof Author author)) {
+            authorNames.clear();  // A bulk change
+        } else if (event.getType() == EntityChangeEvent.ChangeType.DELETE || author.getName() == null) {
+            authorNames.remove(author.getId());
+        } else {
+            authorNames.put(author.getId(), author.getName());
+        }
+    }
+
+    // Kept current from author events, so each author is queried once
+    private String findAuthorName(Long authorId) {
+        String cached = authorNames.get(authorId);
+        if (cached != null) {
+            return cached;
+        }
+        List<String> names = jdbcTemplate.queryForList("select name from author where id = ?", String.class, authorId);
+        if (names.isEmpty() || names.get(0) == null) {
+            return null;
+        }
+        authorNames.putIfAbsent(authorId, names.get(0));
+        return names.get(0);
+    }
+
+    private static <K> Runnable index(Map<K, Set<BookSubscription>> index, Collection<K> keys, BookSubscription subscription) {
+        for (K key : keys) {
+            index.computeIfAbsent(key, ignored -> new LinkedHashSet<>()).add(subscription);
+        }
+        return () -> {
+            for (K key : keys) {
+                Set<BookSubscription> subscriptions = index.get(key);
+                if (subscriptions != null && subscriptions.remove(subscription) && subscriptions.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        };
+    }
+
+    private static List<Long> longValues(List<?> values) {
+        return values.stream().map(Long.class::cast).toList();
+    }
+
+    @FunctionalInterface
+    private interface Delivery {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,40 @@
+package com.gkilas.filtering.rest.subscription;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The subscriptions each book was last sent to as a match. A change that makes a book stop matching
+ * must reach the subscriptions holding it, which the criteria indexes no longer lead to once the
+ * book has changed. The sets are copied on write, so a set returned by {@link #holders(long)} is
+ * never modified.
+ */
+class MatchedBookIndex {
+
+    private final Map<Long, Set<BookSubscription>> holdersByBookId = new ConcurrentHashMap<>();
+
+    void add(long bookId, BookSubscription subscription) {
+        holdersByBookId.compute(bookId, (id, holders) -> {
+            Set<BookSubscription> updated = holders == null ? new HashSet<>() : new HashSet<>(holders);
+            updated.add(subscription);
+            return updated;
+        });
+    }
+
+    void remove(long bookId, BookSubscription subscription) {
+        holdersByBookId.computeIfPresent(bookId, (id, holders) -> {
+            if (!holders.contains(subscription)) {
+                return holders;
+            }
+            Set<BookSubscription> updated = new HashSet<>(holders);
+            updated.remove(subscription);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    Set<BookSubscription> holders(long bookId) {
+        return holdersByBookId.getOrDefault(bookId, Set.of());
+    }
+}
@@ -0,0 +1,28 @@
+package com.gkilas.filtering.rest.version;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener bumping the version of the entity's table when an insert, update or
+ * delete commits. Hibernate obtains the listener from the Spring context, so it is injected.
+ */
+@Component
+public class TableVersionListener {
+
+    private final TableVersions tableVersions;
+
+    public TableVersionListener(TableVersions tableVersions) {
+        this.tableVersions = tableVersions;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        tableVersions.bumpAfterCommit(Hibernate.getClass(entity));
+    }
+}
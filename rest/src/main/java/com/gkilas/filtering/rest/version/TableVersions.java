@@ -0,0 +1,85 @@
+package com.gkilas.filtering.rest.version;
+
+import com.gkilas.filtering.rest.event.EntityChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory version counters, one per table, bumped after every committed change. A response
+ * computed after reading a version can be reused as long as the version has not moved. Counters
+ * restart with the process, so every version is qualified by a random epoch chosen at startup.
+ */
+@Component
+public class TableVersions {
+
+    private final long epoch = new SecureRandom().nextLong();
+    private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    // Read the current version of the table mapped by an entity class
+    public long current(Class<?> entityClass) {
+        return counter(entityClass).get();
+    }
+
+    // Bump the version of the table mapped by an entity class
+    public void bump(Class<?> entityClass) {
+        counter(entityClass).incrementAndGet();
+    }
+
+    /**
+     * Bumps the version once the current transaction commits, or immediately without a transaction.
+     * A rolled back transaction leaves the version untouched, and a transaction changing the same
+     * table many times bumps it once.
+     *
+     * @param entityClass the entity class mapping the changed table
+     */
+    public void bumpAfterCommit(Class<?> entityClass) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(entityClass);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Class<?>> pending = (Set<Class<?>>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Class<?>> changedTables = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, changedTables);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changedTables.forEach(TableVersions.this::bump);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TableVersions.this);
+                }
+            });
+            pending = changedTables;
+        }
+        pending.add(entityClass);
+    }
+
+    // Bulk statements bypass entity listeners, so their completion is taken from the change event
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.getType() == EntityChangeEvent.ChangeType.BULK) {
+            bump(event.getEntityClass());
+        }
+    }
+
+    private AtomicLong counter(Class<?> entityClass) {
+        return versions.computeIfAbsent(entityClass, key -> new AtomicLong());
+    }
+}
@@ -1,31 +1,144 @@
 package com.gkilas.filtering.rest.web;
 
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gkilas.filtering.rest.criteria.BookCriteria;
 import com.gkilas.filtering.rest.domain.Book;
 import com.gkilas.filtering.rest.service.BookService;
+import com.gkilas.filtering.rest.service.InvalidRowException;
+import com.gkilas.filtering.rest.specification.BookSpecification;
+import com.gkilas.filtering.rest.subscription.BookSubscriptions;
+import com.kgkilas.filtering.aggregation.FacetResult;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @RestController
 @RequestMapping("/api/books")
+@RegisterReflectionForBinding(BookCriteria.class)
 public class BookController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final BookService bookService;
+    private final ObjectMapper objectMapper;
+    private final BookSubscriptions bookSubscriptions;
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, ObjectMapper objectMapper, BookSubscriptions bookSubscriptions) {
         this.bookService = bookService;
+        this.objectMapper = objectMapper;
+        this.bookSubscriptions = bookSubscriptions;
     }
 
 
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks(BookCriteria bookCriteria) {
+    public ResponseEntity<List<Book>> getAllBooks(BookCriteria bookCriteria, WebRequest webRequest) {
+        String eTag = bookService.getBooksETag(bookCriteria);
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();  // Nothing changed since the client's copy
+        }
         List<Book> books = bookService.getAllBooks(bookCriteria);
-        return ResponseEntity.ok(books);
+        return ResponseEntity.ok().eTag(eTag).body(books);
+    }
+
+    @GetMapping(value = "/subscriptions", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(BookCriteria bookCriteria) {
+        return bookSubscriptions.subscribe(bookCriteria);
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<List<FacetResult>> getFacets(BookCriteria bookCriteria,
+                                                       @RequestParam(defaultValue = "20") int authorLimit,
+                                                       @RequestParam(defaultValue = "100") long idInterval) {
+        if (idInterval <= 0) {
+            return ResponseEntity.badRequest().build();  // Histogram buckets need a positive width
+        }
+        return ResponseEntity.ok(bookService.getFacets(bookCriteria, authorLimit, idInterval));
+    }
+
+    @PostMapping(value = "/bulk", consumes = NDJSON)
+    public ResponseEntity<Long> createBooks(InputStream body) throws IOException {
+        try (MappingIterator<Book> books = objectMapper.readerFor(Book.class).readValues(body);
+             Stream<Book> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows(books), Spliterator.ORDERED), false)) {
+            return ResponseEntity.ok(bookService.createBooks(stream));
+        }
+    }
+
+    @ExceptionHandler(InvalidRowException.class)
+    public ResponseEntity<String> handleInvalidRow(InvalidRowException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    // Report a row that is not valid JSON by its line, like a row the service rejects
+    private static Iterator<Book> rows(MappingIterator<Book> books) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return books.hasNext();
+                } catch (RuntimeException e) {
+                    throw invalidRow(books, e);
+                }
+            }
+
+            @Override
+            public Book next() {
+                try {
+                    return books.next();
+                } catch (RuntimeException e) {
+                    throw invalidRow(books, e);
+                }
+            }
+        };
+    }
+
+    // MappingIterator wraps read errors in unchecked exceptions; anything else is not the client's fault
+    private static RuntimeException invalidRow(MappingIterator<Book> books, RuntimeException e) {
+        if (!(e.getCause() instanceof JsonProcessingException cause)) {
+            return e;
+        }
+        JsonLocation location = cause.getLocation() != null ? cause.getLocation() : books.getCurrentLocation();
+        return new InvalidRowException(location.getLineNr(), cause.getOriginalMessage());
+    }
+
+    @PatchMapping("/author/{authorId}")
+    public ResponseEntity<Long> updateBookAuthor(BookCriteria bookCriteria, @PathVariable Long authorId) {
+        if (BookSpecification.normalize(bookCriteria).isUnconstrained()) {
+            return ResponseEntity.badRequest().build();  // Refuse to rewrite the whole table without a filter
+        }
+        return ResponseEntity.of(bookService.updateBookAuthor(bookCriteria, authorId));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Long> deleteBooks(BookCriteria bookCriteria) {
+        if (BookSpecification.normalize(bookCriteria).isUnconstrained()) {
+            return ResponseEntity.badRequest().build();  // Refuse to delete the whole table without a filter
+        }
+        return ResponseEntity.ok(bookService.deleteBooks(bookCriteria));
     }
 }
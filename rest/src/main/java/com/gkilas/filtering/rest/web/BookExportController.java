@@ -0,0 +1,56 @@
+package com.gkilas.filtering.rest.web;
+
+import com.gkilas.filtering.rest.criteria.BookCriteria;
+import com.gkilas.filtering.rest.export.ExportFormat;
+import com.gkilas.filtering.rest.export.ExportJob;
+import com.gkilas.filtering.rest.service.BookExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/books/exports")
+public class BookExportController {
+
+    private final BookExportService bookExportService;
+
+    @Autowired
+    public BookExportController(BookExportService bookExportService) {
+        this.bookExportService = bookExportService;
+    }
+
+
+    @PostMapping
+    public ResponseEntity<ExportJob> startExport(BookCriteria bookCriteria,
+                                                 @RequestParam(defaultValue = "CSV") ExportFormat format,
+                                                 @RequestParam(defaultValue = "false") boolean gzip,
+                                                 @RequestParam(required = false) Integer partitions) {
+        if (partitions != null && (partitions < 1 || partitions > bookExportService.getMaxPartitions())) {
+            return ResponseEntity.badRequest().build();  // Each partition is a chunk and a task, so the count is bounded
+        }
+        ExportJob job = bookExportService.startExport(bookCriteria, format, gzip, partitions);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/{jobId}")
+                .buildAndExpand(job.getId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ExportJob> getExport(@PathVariable String jobId) {
+        return ResponseEntity.of(bookExportService.getExport(jobId));
+    }
+
+    @PostMapping("/{jobId}/resume")
+    public ResponseEntity<ExportJob> resumeExport(@PathVariable String jobId) {
+        return ResponseEntity.of(bookExportService.resumeExport(jobId));
+    }
+}
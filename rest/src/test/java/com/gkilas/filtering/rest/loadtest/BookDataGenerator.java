@@ -0,0 +1,85 @@
+package com.gkilas.filtering.rest.loadtest;
+
+import com.gkilas.filtering.rest.domain.Author;
+import com.gkilas.filtering.rest.domain.Book;
+import com.gkilas.filtering.rest.version.TableVersions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Fills the embedded database with a reproducible synthetic dataset before the application reports
+ * ready. Books are spread over authors with a Zipf distribution, so a few authors own most books,
+ * and titles are drawn from a Zipf-weighted vocabulary. Rows are written with JDBC batches and
+ * explicit ids, after which the id sequences are restarted past the generated ids.
+ */
+@Slf4j
+@Component
+@Profile("loadtest")
+public class BookDataGenerator implements ApplicationRunner {
+
+    // allocationSize of the author and book id generators
+    private static final long ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TableVersions tableVersions;
+    private final LoadTestProperties.Data data;
+
+    public BookDataGenerator(JdbcTemplate jdbcTemplate, TableVersions tableVersions, LoadTestProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableVersions = tableVersions;
+        this.data = properties.data();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Long existingBooks = jdbcTemplate.queryForObject("select count(*) from book", Long.class);
+        if (existingBooks != null && existingBooks > 0) {
+            log.info("Skipping data generation, the book table already holds {} rows", existingBooks);
+            return;
+        }
+        long started = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(data.seed());
+
+        List<Object[]> rows = new ArrayList<>(data.batchSize());
+        for (int authorId = 1; authorId <= data.authors(); authorId++) {
+            rows.add(new Object[]{(long) authorId, SyntheticText.authorName(authorId)});
+            if (rows.size() == data.batchSize()) {
+                flush("insert into author (id, name) values (?, ?)", rows);
+            }
+        }
+        flush("insert into author (id, name) values (?, ?)", rows);
+
+        ZipfSampler authorSampler = new ZipfSampler(data.authors(), data.zipfExponent());
+        ZipfSampler wordSampler = new ZipfSampler(SyntheticText.WORDS.length, 1.0);
+        for (long bookId = 1; bookId <= data.books(); bookId++) {
+            rows.add(new Object[]{bookId, SyntheticText.title(random, wordSampler), (long) authorSampler.sample(random)});
+            if (rows.size() == data.batchSize()) {
+                flush("insert into book (id, title, author_id) values (?, ?, ?)", rows);
+            }
+        }
+        flush("insert into book (id, title, author_id) values (?, ?, ?)", rows);
+
+        // The pooled optimizer hands out the allocation block ending at the sequence value
+        jdbcTemplate.execute("alter sequence author_id_seq restart with " + (data.authors() + ALLOCATION_SIZE));
+        jdbcTemplate.execute("alter sequence book_id_seq restart with " + (data.books() + ALLOCATION_SIZE));
+        // Written around the entity listeners, so the versions are bumped by hand
+        tableVersions.bump(Author.class);
+        tableVersions.bump(Book.class);
+        log.info("Generated {} authors and {} books in {} ms", data.authors(), data.books(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void flush(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.gkilas.filtering.rest.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records response latencies into a preallocated array sized for the whole run, so recording
+ * never allocates. Percentiles are computed from a sorted copy once the run is over.
+ */
+final class LatencyRecorder {
+
+    private final AtomicLongArray latencies;
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    LatencyRecorder(int capacity) {
+        latencies = new AtomicLongArray(capacity);
+    }
+
+    void record(long latencyNanos, boolean success) {
+        if (!success) {
+            errors.incrementAndGet();
+        }
+        int index = count.getAndIncrement();
+        if (index < latencies.length()) {
+            latencies.set(index, latencyNanos);
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    long[] sortedLatencies() {
+        int recorded = Math.min(count.get(), latencies.length());
+        long[] sorted = new long[recorded];
+        for (int i = 0; i < recorded; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    long errors() {
+        return errors.get();
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+
+    static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,271 @@
+package com.gkilas.filtering.rest.loadtest;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a weighted mix of {@code /api/books} requests against the running application at a fixed
+ * rate, first for a warmup period whose results are discarded, then for the measured period.
+ * Requests are sent asynchronously on a fixed schedule and every latency is measured from the time
+ * the request was scheduled, not sent, so a stalled server is charged for the requests queued behind
+ * it instead of silently lowering the offered load (coordinated omission).
+ */
+@Slf4j
+@Component
+@Profile("loadtest")
+public class LoadDriver {
+
+    private static final long POOL_SAMPLE_INTERVAL_MILLIS = 50;
+
+    private final LoadTestProperties.Driver driver;
+    private final LoadTestProperties.Data data;
+    private final DataSource dataSource;
+    private final ApplicationContext applicationContext;
+
+    public LoadDriver(LoadTestProperties properties, DataSource dataSource, ApplicationContext applicationContext) {
+        this.driver = properties.driver();
+        this.data = properties.data();
+        this.dataSource = dataSource;
+        this.applicationContext = applicationContext;
+    }
+
+    // Start once everything else, such as the replica, has handled the ready event
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void start(ApplicationReadyEvent event) {
+        int port = event.getApplicationContext().getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        Thread thread = new Thread(() -> run("http://localhost:" + port), "load-driver");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run(String baseUrl) {
+        int exitCode;
+        try {
+            exitCode = runLoadTest(baseUrl);
+        } catch (Exception e) {
+            log.error("Load test failed", e);
+            exitCode = 1;
+        }
+        if (driver.exitOnCompletion()) {
+            int code = exitCode;
+            System.exit(SpringApplication.exit(applicationContext, () -> code));
+        }
+    }
+
+    private int runLoadTest(String baseUrl) throws SQLException, InterruptedException {
+        List<LoadTestProperties.Request> mix = driver.mix();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(driver.timeout())
+                .build();
+        SplittableRandom random = new SplittableRandom(data.seed());
+        RequestFactory requests = new RequestFactory(baseUrl, mix, data);
+
+        log.info("Warming up for {} at {} requests/s", driver.warmup(), driver.rate());
+        runPhase(client, requests, random, driver.warmup(), recorders(mix.size(), driver.warmup()));
+
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        PoolSampler poolSampler = new PoolSampler(hikari.getHikariPoolMXBean(), hikari.getMaximumPoolSize());
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(poolSampler, 0, POOL_SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        Map<String, long[]> gcBefore = gcSnapshot();
+
+        log.info("Measuring for {} at {} requests/s", driver.duration(), driver.rate());
+        LatencyRecorder[] recorders = recorders(mix.size(), driver.duration());
+        long started = System.nanoTime();
+        runPhase(client, requests, random, driver.duration(), recorders);
+        long elapsedNanos = System.nanoTime() - started;
+
+        sampler.shutdownNow();
+        Map<String, long[]> gcAfter = gcSnapshot();
+        return report(mix, recorders, elapsedNanos, gcBefore, gcAfter, poolSampler);
+    }
+
+    /**
+     * Sends requests on the fixed schedule until the phase ends, then waits for the requests in flight.
+     */
+    private void runPhase(HttpClient client, RequestFactory requests, SplittableRandom random, Duration length,
+                          LatencyRecorder[] recorders) throws InterruptedException {
+        long periodNanos = 1_000_000_000L / driver.rate();
+        Semaphore inFlight = new Semaphore(driver.maxInFlight());
+        long start = System.nanoTime();
+        long end = start + length.toNanos();
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * periodNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int scenario = requests.pickScenario(random);
+            HttpRequest request = HttpRequest.newBuilder(requests.uri(scenario, random))
+                    .timeout(driver.timeout())
+                    .GET()
+                    .build();
+            inFlight.acquire();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                recorders[scenario].record(System.nanoTime() - intendedStart, error == null && response.statusCode() < 400);
+                inFlight.release();
+            });
+        }
+        if (!inFlight.tryAcquire(driver.maxInFlight(), driver.timeout().toMillis() * 2, TimeUnit.MILLISECONDS)) {
+            log.warn("Requests still in flight after the phase ended");
+        } else {
+            inFlight.release(driver.maxInFlight());
+        }
+    }
+
+    private int report(List<LoadTestProperties.Request> mix, LatencyRecorder[] recorders, long elapsedNanos,
+                       Map<String, long[]> gcBefore, Map<String, long[]> gcAfter, PoolSampler poolSampler) {
+        StringBuilder report = new StringBuilder("\nLoad test report\n");
+        report.append(String.format("%-8s %8s %7s %9s %9s %9s %9s  %s%n", "weight", "count", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms", "request"));
+        List<long[]> all = new ArrayList<>();
+        long count = 0;
+        long errors = 0;
+        long dropped = 0;
+        for (int i = 0; i < recorders.length; i++) {
+            long[] sorted = recorders[i].sortedLatencies();
+            all.add(sorted);
+            count += recorders[i].count();
+            errors += recorders[i].errors();
+            dropped += recorders[i].dropped();
+            appendRow(report, String.valueOf(mix.get(i).weight()), recorders[i].count(), recorders[i].errors(), sorted, mix.get(i).path());
+        }
+        long[] total = all.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        appendRow(report, "total", count, errors, total, "");
+
+        double seconds = elapsedNanos / 1e9;
+        report.append(String.format("Throughput: %.1f requests/s completed, %d requests/s offered%n", count / seconds, driver.rate()));
+        if (dropped > 0) {
+            report.append(String.format("Latencies not recorded (recorder full): %d%n", dropped));
+        }
+        gcAfter.forEach((collector, after) -> {
+            long[] before = gcBefore.getOrDefault(collector, new long[2]);
+            report.append(String.format("GC %s: %d collections, %d ms%n", collector, after[0] - before[0], after[1] - before[1]));
+        });
+        report.append("Connection pool: ").append(poolSampler.summary()).append('\n');
+        log.info(report.toString());
+
+        long p99Nanos = LatencyRecorder.percentile(total, 0.99);
+        if (driver.p99Budget() != null && p99Nanos > driver.p99Budget().toNanos()) {
+            log.error("Overall p99 of {} ms exceeds the budget of {} ms", p99Nanos / 1_000_000.0, driver.p99Budget().toMillis());
+            return 1;
+        }
+        return errors > 0 ? 1 : 0;
+    }
+
+    private static void appendRow(StringBuilder report, String label, long count, long errors, long[] sorted, String path) {
+        report.append(String.format("%-8s %8d %7d %9.2f %9.2f %9.2f %9.2f  %s%n", label, count, errors,
+                millis(LatencyRecorder.percentile(sorted, 0.5)),
+                millis(LatencyRecorder.percentile(sorted, 0.99)),
+                millis(LatencyRecorder.percentile(sorted, 0.999)),
+                millis(sorted.length > 0 ? sorted[sorted.length - 1] : 0),
+                path));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private LatencyRecorder[] recorders(int scenarios, Duration length) {
+        // Every scenario gets room for the whole phase, as the mix is random
+        long capacity = driver.rate() * Math.max(1, length.toSeconds()) + driver.rate();
+        LatencyRecorder[] recorders = new LatencyRecorder[scenarios];
+        for (int i = 0; i < scenarios; i++) {
+            recorders[i] = new LatencyRecorder((int) Math.min(capacity, Integer.MAX_VALUE - 8));
+        }
+        return recorders;
+    }
+
+    private static Map<String, long[]> gcSnapshot() {
+        Map<String, long[]> snapshot = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            snapshot.put(collector.getName(), new long[]{collector.getCollectionCount(), collector.getCollectionTime()});
+        }
+        return snapshot;
+    }
+
+    /**
+     * Picks weighted scenarios and expands their templates with random values from the generated dataset.
+     */
+    private static final class RequestFactory {
+
+        private final String baseUrl;
+        private final List<String> templates = new ArrayList<>();
+        private final int[] cumulativeWeights;
+        private final long books;
+        private final ZipfSampler authorSampler;
+        private final ZipfSampler wordSampler;
+
+        RequestFactory(String baseUrl, List<LoadTestProperties.Request> mix, LoadTestProperties.Data data) {
+            this.baseUrl = baseUrl;
+            this.cumulativeWeights = new int[mix.size()];
+            int sum = 0;
+            for (int i = 0; i < mix.size(); i++) {
+                // Brackets of nested criteria are not legal in a URI query
+                templates.add(mix.get(i).path().replace("[", "%5B").replace("]", "%5D"));
+                sum += mix.get(i).weight();
+                cumulativeWeights[i] = sum;
+            }
+            this.books = data.books();
+            this.authorSampler = new ZipfSampler(data.authors(), data.zipfExponent());
+            this.wordSampler = new ZipfSampler(SyntheticText.WORDS.length, 1.0);
+        }
+
+        int pickScenario(SplittableRandom random) {
+            int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (pick < cumulativeWeights[i]) {
+                    return i;
+                }
+            }
+            return cumulativeWeights.length - 1;
+        }
+
+        URI uri(int scenario, SplittableRandom random) {
+            String path = templates.get(scenario)
+                    .replace("{bookId}", String.valueOf(1 + random.nextLong(books)))
+                    .replace("{authorName}", encode(SyntheticText.authorName(authorSampler.sample(random))))
+                    .replace("{word}", encode(SyntheticText.WORDS[wordSampler.sample(random) - 1]));
+            return URI.create(baseUrl + path);
+        }
+
+        private static String encode(String value) {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.gkilas.filtering.rest.loadtest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of the load-test harness, bound from the {@code loadtest} prefix of {@code application-loadtest.yml}.
+ */
+@ConfigurationProperties(prefix = "loadtest")
+public record LoadTestProperties(Data data, Driver driver) {
+
+    /**
+     * Size and shape of the generated dataset.
+     */
+    public record Data(int authors, long books, double zipfExponent, long seed, int batchSize) {
+    }
+
+    /**
+     * Fixed-rate request schedule replayed against the running application.
+     */
+    public record Driver(int rate, Duration warmup, Duration duration, int maxInFlight, Duration timeout,
+                         boolean exitOnCompletion, Duration p99Budget, List<Request> mix) {
+    }
+
+    /**
+     * A weighted request template.
+     */
+    public record Request(int weight, String path) {
+    }
+}
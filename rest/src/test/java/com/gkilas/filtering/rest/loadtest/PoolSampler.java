@@ -0,0 +1,41 @@
+package com.gkilas.filtering.rest.loadtest;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Samples the connection pool while the load runs. The pool counts as saturated in a sample
+ * when every connection is in use, and threads waiting for a connection show how far demand
+ * exceeded the pool.
+ */
+final class PoolSampler implements Runnable {
+
+    private final HikariPoolMXBean pool;
+    private final int maximumPoolSize;
+    private volatile int maxActive;
+    private volatile int maxPending;
+    private volatile long samples;
+    private volatile long saturatedSamples;
+
+    PoolSampler(HikariPoolMXBean pool, int maximumPoolSize) {
+        this.pool = pool;
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    // Only ever called from the single sampling thread
+    @Override
+    public void run() {
+        int active = pool.getActiveConnections();
+        maxActive = Math.max(maxActive, active);
+        maxPending = Math.max(maxPending, pool.getThreadsAwaitingConnection());
+        samples++;
+        if (active >= maximumPoolSize) {
+            saturatedSamples++;
+        }
+    }
+
+    String summary() {
+        double saturated = samples == 0 ? 0 : 100.0 * saturatedSamples / samples;
+        return String.format("max active %d/%d, max pending %d, saturated in %.1f%% of %d samples",
+                maxActive, maximumPoolSize, maxPending, saturated, samples);
+    }
+}
@@ -0,0 +1,59 @@
+package com.gkilas.filtering.rest.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic author names and title text for the generated dataset. Author names are derived
+ * from the author id alone, so the load driver can target existing authors without querying them.
+ */
+final class SyntheticText {
+
+    private static final String[] FIRST_NAMES = {
+            "Ada", "Alan", "Alice", "Anna", "Arthur", "Barbara", "Carl", "Charlotte", "Clara", "Daniel",
+            "David", "Edith", "Elena", "Emily", "Frank", "George", "Grace", "Hannah", "Henry", "Isaac",
+            "Jane", "John", "Julia", "Karl", "Laura", "Leo", "Lucy", "Margaret", "Maria", "Mark",
+            "Mary", "Nora", "Oscar", "Paul", "Peter", "Rachel", "Robert", "Rosa", "Ruth", "Samuel",
+            "Sarah", "Simone", "Sofia", "Thomas", "Ursula", "Victor", "Virginia", "Walter", "William", "Zoe"};
+
+    private static final String[] LAST_NAMES = {
+            "Adams", "Austen", "Baker", "Bennett", "Bronte", "Carter", "Christie", "Clarke", "Dickens", "Eliot",
+            "Evans", "Fischer", "Fitzgerald", "Garcia", "Green", "Hardy", "Harris", "Hughes", "Ishiguro", "James",
+            "Jones", "King", "Le Guin", "Lewis", "Martin", "Moore", "Morrison", "Murakami", "Nakamura", "Novak",
+            "Orwell", "Parker", "Petrov", "Pratchett", "Rossi", "Rowling", "Schmidt", "Shelley", "Silva", "Smith",
+            "Steinbeck", "Taylor", "Tolkien", "Tolstoy", "Turner", "Walker", "Weber", "Wilde", "Woolf", "Young"};
+
+    // Ordered by intended frequency, since words are drawn with a Zipf distribution
+    static final String[] WORDS = {
+            "the", "of", "and", "a", "in", "to", "night", "house", "last", "world",
+            "war", "love", "city", "shadow", "king", "river", "secret", "garden", "time", "death",
+            "stone", "fire", "winter", "sea", "dark", "light", "empire", "daughter", "storm", "road",
+            "memory", "silence", "glass", "iron", "summer", "island", "forest", "crown", "blood", "star",
+            "ghost", "mirror", "wolf", "bridge", "letter", "mountain", "queen", "dream", "machine", "ash",
+            "harvest", "lantern", "orchard", "voyage", "station", "archive", "kingdom", "tide", "thief", "clock",
+            "compass", "harbor", "signal", "library", "cathedral", "frontier", "meadow", "paper", "salt", "echo"};
+
+    private static final int MAX_TITLE_LENGTH = 100;
+
+    private SyntheticText() {
+    }
+
+    static String authorName(int authorId) {
+        int index = authorId - 1;
+        int combinations = FIRST_NAMES.length * LAST_NAMES.length;
+        String name = FIRST_NAMES[index % FIRST_NAMES.length] + " " + LAST_NAMES[(index / FIRST_NAMES.length) % LAST_NAMES.length];
+        return index < combinations ? name : name + " " + (index / combinations + 1);
+    }
+
+    static String title(SplittableRandom random, ZipfSampler wordSampler) {
+        int words = 1 + random.nextInt(6);
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = WORDS[wordSampler.sample(random) - 1];
+            if (i > 0) {
+                title.append(' ');
+            }
+            title.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+        }
+        return title.length() > MAX_TITLE_LENGTH ? title.substring(0, MAX_TITLE_LENGTH) : title.toString();
+    }
+}
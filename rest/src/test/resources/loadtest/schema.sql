@@ -0,0 +1,16 @@
+-- Schema of the embedded load-test database, mirroring docker/init.sql without the seed rows
+CREATE TABLE author (
+    id BIGINT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL
+);
+
+CREATE TABLE book (
+    id BIGINT PRIMARY KEY,
+    title VARCHAR(100) NOT NULL,
+    author_id BIGINT,
+    CONSTRAINT fk_author FOREIGN KEY (author_id) REFERENCES author (id)
+);
+
+-- Restarted past the generated ids by the data generator
+CREATE SEQUENCE author_id_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE book_id_seq START WITH 1 INCREMENT BY 50;